@@ -7,57 +7,73 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AttractionClient {
 
+    private static final String DOWNSTREAM = "attraction";
+
     private final WebClient webClient;
+    private final DownstreamHttp downstreamHttp;
 
     @Value("${service.attraction-server.url:http://attraction-server:8080}")
     private String attractionServerUrl;
 
     public AttractionResponse getAttraction(Long attractionId) {
         try {
-            return webClient.get()
-                    .uri(attractionServerUrl + "/attractions/{id}", attractionId)
-                    .retrieve()
-                    .bodyToMono(AttractionResponse.class)
-                    .block();
+            return getAttractionAsync(attractionId).block();
         } catch (Exception e) {
             log.error("Failed to fetch attraction {} from attraction-server: {}", attractionId, e.getMessage());
             return null;
         }
     }
 
+    // 요청 스레드를 막지 않아야 하는 조회용 (구독 측에서 결과/오류 처리)
+    public Mono<AttractionResponse> getAttractionAsync(Long attractionId) {
+        return downstreamHttp.get(DOWNSTREAM, "attraction", () -> webClient.get()
+                .uri(attractionServerUrl + "/attractions/{id}", attractionId)
+                .retrieve()
+                .bodyToMono(AttractionResponse.class));
+    }
+
     public AttractionCycleInfo getCurrentCycle(Long attractionId) {
         try {
-            return webClient.get()
-                    .uri(attractionServerUrl + "/attractions/{id}/cycles/current", attractionId)
-                    .retrieve()
-                    .bodyToMono(AttractionCycleInfo.class)
-                    .block();
+            return getCurrentCycleAsync(attractionId).block();
         } catch (Exception e) {
             log.error("Failed to fetch current cycle for attraction {}: {}", attractionId, e.getMessage());
             return null;
         }
     }
 
+    public Mono<AttractionCycleInfo> getCurrentCycleAsync(Long attractionId) {
+        return downstreamHttp.get(DOWNSTREAM, "current-cycle", () -> webClient.get()
+                .uri(attractionServerUrl + "/attractions/{id}/cycles/current", attractionId)
+                .retrieve()
+                .bodyToMono(AttractionCycleInfo.class));
+    }
+
     public AttractionCycleInfo getCycleByNumber(Long attractionId, String date, int cycleNumber) {
         try {
-            return webClient.get()
-                    .uri(attractionServerUrl + "/attractions/{id}/cycles/by-number?date={date}&cycleNumber={num}",
-                            attractionId, date, cycleNumber)
-                    .retrieve()
-                    .bodyToMono(AttractionCycleInfo.class)
-                    .block();
+            return getCycleByNumberAsync(attractionId, date, cycleNumber).block();
         } catch (Exception e) {
             log.error("Failed to fetch cycle {} for attraction {}: {}", cycleNumber, attractionId, e.getMessage());
             return null;
         }
     }
 
+    public Mono<AttractionCycleInfo> getCycleByNumberAsync(Long attractionId, String date, int cycleNumber) {
+        return downstreamHttp.get(DOWNSTREAM, "cycle-by-number", () -> webClient.get()
+                .uri(attractionServerUrl + "/attractions/{id}/cycles/by-number?date={date}&cycleNumber={num}",
+                        attractionId, date, cycleNumber)
+                .retrieve()
+                .bodyToMono(AttractionCycleInfo.class));
+    }
+
     /**
      * 사용자 단위 단체사진 매칭을 즉시 트리거한다(fire-and-forget).
      *
@@ -74,11 +90,11 @@ public class AttractionClient {
             return;
         }
         try {
-            webClient.post()
-                    .uri(attractionServerUrl + "/attractions/users/photo-match")
-                    .bodyValue(java.util.Map.of("userId", userId, "attractionId", attractionId))
-                    .retrieve()
-                    .bodyToMono(Void.class)
+            downstreamHttp.call(DOWNSTREAM, "photo-match", false, () -> webClient.post()
+                            .uri(attractionServerUrl + "/attractions/users/photo-match")
+                            .bodyValue(java.util.Map.of("userId", userId, "attractionId", attractionId))
+                            .retrieve()
+                            .bodyToMono(Void.class))
                     .subscribe(
                             unused -> log.info("dispatched user-photo-match userId={} attractionId={}", userId, attractionId),
                             err -> log.warn("requestUserPhotoMatch failed userId={} attractionId={}: {}", userId, attractionId, err.getMessage())
@@ -87,4 +103,17 @@ public class AttractionClient {
             log.warn("requestUserPhotoMatch dispatch failed userId={} attractionId={}: {}", userId, attractionId, e.getMessage());
         }
     }
+
+    /**
+     * 한 놀이기구의 여러 사용자에 대한 단체사진 매칭을 한 번의 요청으로 트리거한다(fire-and-forget).
+     *
+     * attraction-server 의 bulk 엔드포인트가 배포된 환경에서만 사용한다 (queue.photo-match.bulk-enabled).
+     */
+    public Mono<Void> requestUserPhotoMatchBatch(Long attractionId, Collection<Long> userIds) {
+        return downstreamHttp.call(DOWNSTREAM, "photo-match-bulk", false, () -> webClient.post()
+                .uri(attractionServerUrl + "/attractions/users/photo-match/bulk")
+                .bodyValue(java.util.Map.of("attractionId", attractionId, "userIds", userIds))
+                .retrieve()
+                .bodyToMono(Void.class));
+    }
 }
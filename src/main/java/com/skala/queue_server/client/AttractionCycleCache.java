@@ -0,0 +1,182 @@
+package com.skala.queue_server.client;
+
+import com.skala.queue_server.dto.AttractionCycleInfo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 놀이기구별 당일 회차표 캐시 + 로컬 회차 시계.
+ *
+ * 하루의 회차는 회차 시간 간격으로 결정되므로, attraction-server 에서 현재 회차를 한 번 받아 기준점(anchor)으로
+ * 삼고 이후의 현재 회차 번호는 로컬 시계로 계산한다. 회차 번호 → attractionCycleId 는 당일 동안 캐시하며,
+ * 기준점 재동기화와 다음 회차들의 id 미리 받기는 백그라운드에서 주기적으로 수행한다.
+ * 날짜가 바뀌면 해당 놀이기구의 회차표를 버리고 새로 받는다.
+ * attraction-cycle-event 로 회차 시작이 push 되는 놀이기구는 그 이벤트로 기준점을 옮기고 HTTP 재동기화는 건너뛴다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttractionCycleCache {
+
+    private final AttractionClient attractionClient;
+
+    @Value("${queue.cycle-cache.prefetch-cycles:20}")
+    private int prefetchCycles;
+
+    @Value("${queue.cycle-cache.prefetch-concurrency:4}")
+    private int prefetchConcurrency;
+
+    private final Map<Long, CycleTable> tables = new ConcurrentHashMap<>();
+
+    // ── 현재 회차 번호 (로컬 시계 기준) ──────────────────────────────────────
+    public Integer currentCycleNumber(Long attractionId, int cyclingTimeSeconds) {
+        CycleTable table = table(attractionId, cyclingTimeSeconds);
+        return table != null ? table.cycleNumberAt(System.currentTimeMillis()) : null;
+    }
+
+    public Long currentCycleId(Long attractionId, int cyclingTimeSeconds) {
+        Integer cycleNumber = currentCycleNumber(attractionId, cyclingTimeSeconds);
+        return cycleNumber != null ? cycleId(attractionId, cycleNumber) : null;
+    }
+
+    // ── 회차 번호 → attractionCycleId (당일 캐시, 미스 시 1회 조회) ──────────
+    public Long cycleId(Long attractionId, int cycleNumber) {
+        if (cycleNumber <= 0) return null;
+        CycleTable table = tables.get(attractionId);
+        LocalDate today = LocalDate.now();
+        if (table != null && table.date.equals(today)) {
+            Long cached = table.cycleIds.get(cycleNumber);
+            if (cached != null) return cached;
+        }
+
+        AttractionCycleInfo cycle = attractionClient.getCycleByNumber(attractionId, today.toString(), cycleNumber);
+        if (cycle == null || cycle.getAttractionCycleId() == null) return null;
+        if (table != null && table.date.equals(today)) {
+            table.cycleIds.put(cycleNumber, cycle.getAttractionCycleId());
+        }
+        return cycle.getAttractionCycleId();
+    }
+
+    // ── 기준점 재동기화 + 다음 회차 id 미리 받기 ─────────────────────────────
+    @Scheduled(fixedDelayString = "${queue.cycle-cache.refresh-interval-ms:60000}")
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        tables.forEach((attractionId, table) -> {
+            if (!table.date.equals(today)) {
+                tables.remove(attractionId, table);
+                log.info("cycle table expired attractionId={} date={}", attractionId, table.date);
+                return;
+            }
+            if (table.pushed) {
+                prefetch(attractionId, table);
+                return;
+            }
+            attractionClient.getCurrentCycleAsync(attractionId).subscribe(
+                    observed -> {
+                        table.resync(observed, System.currentTimeMillis());
+                        prefetch(attractionId, table);
+                    },
+                    err -> log.warn("cycle table resync failed attractionId={}: {}", attractionId, err.getMessage()));
+        });
+    }
+
+    // ── push 반영: 회차 시작 이벤트로 기준점과 회차 id 를 바로 갱신 ───────────
+    public void apply(Long attractionId, LocalDate rideDate, int cycleNumber, Long attractionCycleId,
+                      long startedAtMs, int cyclingTimeSeconds) {
+        // 압축 토픽을 처음부터 읽을 때 지난 날짜 항목은 버린다.
+        if (!rideDate.equals(LocalDate.now())) return;
+        long cycleMs = Math.max(cyclingTimeSeconds, 1) * 1000L;
+        CycleTable table = tables.compute(attractionId, (id, existing) ->
+                existing != null && existing.date.equals(rideDate) ? existing : new CycleTable(rideDate, cycleMs));
+        table.anchor(cycleNumber, startedAtMs);
+        if (attractionCycleId != null) {
+            table.cycleIds.put(cycleNumber, attractionCycleId);
+        }
+        table.pushed = true;
+    }
+
+    public void invalidate(Long attractionId) {
+        tables.remove(attractionId);
+    }
+
+    private CycleTable table(Long attractionId, int cyclingTimeSeconds) {
+        LocalDate today = LocalDate.now();
+        CycleTable table = tables.get(attractionId);
+        if (table != null && table.date.equals(today)) {
+            table.cycleMs = Math.max(cyclingTimeSeconds, 1) * 1000L;
+            return table;
+        }
+
+        // 첫 조회이거나 날짜가 바뀐 경우에만 동기 조회로 기준점을 잡는다.
+        AttractionCycleInfo current = attractionClient.getCurrentCycle(attractionId);
+        if (current == null || current.getCycleNumber() == null) return null;
+
+        CycleTable fresh = new CycleTable(today, Math.max(cyclingTimeSeconds, 1) * 1000L);
+        fresh.resync(current, System.currentTimeMillis());
+        tables.put(attractionId, fresh);
+        prefetch(attractionId, fresh);
+        return fresh;
+    }
+
+    private void prefetch(Long attractionId, CycleTable table) {
+        if (prefetchCycles <= 0) return;
+        int from = table.cycleNumberAt(System.currentTimeMillis());
+        String date = table.date.toString();
+        Flux.range(from, prefetchCycles)
+                .filter(number -> !table.cycleIds.containsKey(number))
+                .flatMap(number -> attractionClient.getCycleByNumberAsync(attractionId, date, number)
+                        .onErrorResume(e -> Mono.empty()), prefetchConcurrency)
+                .subscribe(cycle -> {
+                    if (cycle.getCycleNumber() != null && cycle.getAttractionCycleId() != null) {
+                        table.cycleIds.put(cycle.getCycleNumber(), cycle.getAttractionCycleId());
+                    }
+                });
+    }
+
+    private static final class CycleTable {
+
+        private final LocalDate date;
+        private final Map<Integer, Long> cycleIds = new ConcurrentHashMap<>();
+        private volatile long cycleMs;
+        private volatile int anchorCycleNumber;
+        private volatile long anchorAtMs;
+        private volatile boolean pushed;
+
+        private CycleTable(LocalDate date, long cycleMs) {
+            this.date = date;
+            this.cycleMs = cycleMs;
+        }
+
+        int cycleNumberAt(long nowMs) {
+            return anchorCycleNumber + (int) (Math.max(nowMs - anchorAtMs, 0L) / cycleMs);
+        }
+
+        // push 된 회차 시작은 그대로 기준점으로 삼는다 (늦게 도착한 이전 회차는 무시).
+        synchronized void anchor(int cycleNumber, long startedAtMs) {
+            if (anchorAtMs != 0L && cycleNumber < anchorCycleNumber) return;
+            anchorCycleNumber = cycleNumber;
+            anchorAtMs = startedAtMs;
+        }
+
+        // 로컬 시계로 계산한 회차가 실제 회차와 다를 때만 기준점을 옮겨 경계 오차가 누적되지 않게 한다.
+        synchronized void resync(AttractionCycleInfo observed, long nowMs) {
+            if (observed == null || observed.getCycleNumber() == null) return;
+            if (anchorAtMs == 0L || cycleNumberAt(nowMs) != observed.getCycleNumber()) {
+                anchorCycleNumber = observed.getCycleNumber();
+                anchorAtMs = nowMs;
+            }
+            if (observed.getAttractionCycleId() != null) {
+                cycleIds.put(observed.getCycleNumber(), observed.getAttractionCycleId());
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.skala.queue_server.client;
+
+import com.skala.queue_server.util.CircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 외부 서버 호출 공통 정책.
+ *
+ * 엔드포인트별 deadline(service.http.endpoint.{endpoint}.timeout-ms), 다운스트림별 서킷 브레이커,
+ * 멱등 GET 의 hedged 재시도(hedge-delay-ms 안에 응답이 없으면 같은 요청을 한 번 더 보내 먼저 온 응답 사용)를 적용하고,
+ * 호출마다 http.client.downstream 타이머를 (downstream, endpoint, outcome) 태그로 기록한다.
+ * 4xx 응답은 다운스트림 장애가 아니므로 서킷 브레이커 실패로 세지 않는다.
+ * 결과 전에 취소된 호출(병렬 조회 취소, block 인터럽트 등)은 브레이커에 취소로 알려 HALF_OPEN 허가를 반납한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DownstreamHttp {
+
+    private static final String PREFIX = "service.http.";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public <T> Mono<T> get(String downstream, String endpoint, Supplier<Mono<T>> request) {
+        return call(downstream, endpoint, true, request);
+    }
+
+    public <T> Mono<T> call(String downstream, String endpoint, boolean idempotent, Supplier<Mono<T>> request) {
+        CircuitBreaker breaker = breaker(downstream);
+        Duration timeout = Duration.ofMillis(longProperty("endpoint." + endpoint + ".timeout-ms",
+                longProperty("default-timeout-ms", 2000L)));
+        long hedgeDelayMs = idempotent ? longProperty("hedge-delay-ms", 300L) : 0L;
+
+        return Mono.defer(() -> {
+            if (!breaker.tryAcquire()) {
+                record(downstream, endpoint, "rejected", 0L);
+                return Mono.error(new CircuitBreaker.OpenException(downstream));
+            }
+            long start = System.nanoTime();
+            AtomicBoolean settled = new AtomicBoolean();
+            Mono<Optional<T>> attempt = Mono.defer(() -> request.get().timeout(timeout))
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty());
+            Mono<Optional<T>> hedged = hedgeDelayMs > 0 && hedgeDelayMs < timeout.toMillis()
+                    ? Mono.firstWithValue(attempt, attempt.delaySubscription(Duration.ofMillis(hedgeDelayMs)))
+                            .onErrorMap(NoSuchElementException.class, DownstreamHttp::firstCause)
+                    : attempt;
+
+            return hedged
+                    .doOnSuccess(result -> {
+                        settled.set(true);
+                        breaker.onSuccess();
+                        record(downstream, endpoint, "success", System.nanoTime() - start);
+                    })
+                    .doOnError(e -> {
+                        settled.set(true);
+                        String outcome = outcome(e);
+                        if ("client_error".equals(outcome)) {
+                            breaker.onSuccess();
+                        } else {
+                            breaker.onFailure();
+                        }
+                        record(downstream, endpoint, outcome, System.nanoTime() - start);
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL && settled.compareAndSet(false, true)) {
+                            breaker.onCancel();
+                            record(downstream, endpoint, "cancelled", System.nanoTime() - start);
+                        }
+                    })
+                    .flatMap(Mono::justOrEmpty);
+        });
+    }
+
+    public CircuitBreaker.State state(String downstream) {
+        return breaker(downstream).state();
+    }
+
+    private CircuitBreaker breaker(String downstream) {
+        return breakers.computeIfAbsent(downstream, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(
+                    name,
+                    intProperty("circuit.window-size", 20),
+                    doubleProperty("circuit.failure-rate-threshold", 0.5),
+                    intProperty("circuit.minimum-calls", 10),
+                    longProperty("circuit.open-ms", 10000L),
+                    intProperty("circuit.half-open-permits", 3));
+            Gauge.builder("http.client.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("0=CLOSED, 1=OPEN, 2=HALF_OPEN")
+                    .tag("downstream", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    private void record(String downstream, String endpoint, String outcome, long nanos) {
+        Timer.builder("http.client.downstream")
+                .tag("downstream", downstream)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof TimeoutException) return "timeout";
+        if (e instanceof WebClientResponseException w && w.getStatusCode().is4xxClientError()) return "client_error";
+        return "error";
+    }
+
+    // hedge 두 요청이 모두 실패하면 firstWithValue 는 원인을 suppressed 로 묶으므로 첫 원인을 꺼낸다.
+    private static Throwable firstCause(NoSuchElementException e) {
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    private long longProperty(String key, long defaultValue) {
+        return environment.getProperty(PREFIX + key, Long.class, defaultValue);
+    }
+
+    private int intProperty(String key, int defaultValue) {
+        return environment.getProperty(PREFIX + key, Integer.class, defaultValue);
+    }
+
+    private double doubleProperty(String key, double defaultValue) {
+        return environment.getProperty(PREFIX + key, Double.class, defaultValue);
+    }
+}
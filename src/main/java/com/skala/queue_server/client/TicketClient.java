@@ -1,32 +1,93 @@
 package com.skala.queue_server.client;
 
 import com.skala.queue_server.dto.IssuedTicketValidationResponse;
+import com.skala.queue_server.exception.ErrorCode;
+import com.skala.queue_server.exception.QueueException;
+import com.skala.queue_server.util.TtlCache;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
 
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ticket-server 조회 클라이언트.
+ *
+ * 입장 처리(entryStatus=USED)된 티켓은 소유자/등급이 더 이상 바뀌지 않으므로 TTL 캐시에 담아 두고,
+ * 같은 티켓에 대한 동시 조회는 한 번의 호출로 합친다. ticket-server 가 티켓을 환불/재발급하는 경우
+ * invalidate-channel 로 issuedTicketId 를 평문으로 발행하면 모든 레플리카에서 즉시 제거된다.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class TicketClient {
 
+    private static final String ENTERED = "USED";
+
     private final WebClient webClient;
+    private final DownstreamHttp downstreamHttp;
+    private final RedisMessageListenerContainer listenerContainer;
 
     @Value("${service.ticket-server.url:http://ticket-server:8080}")
     private String ticketServerUrl;
 
+    @Value("${queue.ticket-cache.ttl-ms:600000}")
+    private long cacheTtlMs;
+
+    @Value("${queue.ticket-cache.max-size:100000}")
+    private int cacheMaxSize;
+
+    @Value("${queue.ticket-cache.invalidate-channel:}")
+    private String invalidateChannel;
+
+    private TtlCache<Long, IssuedTicketValidationResponse> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = new TtlCache<>(cacheTtlMs, cacheMaxSize, ticket -> ENTERED.equals(ticket.getEntryStatus()));
+        if (invalidateChannel == null || invalidateChannel.isBlank()) return;
+
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+            try {
+                invalidate(Long.parseLong(body));
+            } catch (NumberFormatException e) {
+                log.warn("ticket invalidation ignored: {}", body);
+            }
+        }, new ChannelTopic(invalidateChannel));
+    }
+
     public IssuedTicketValidationResponse getIssuedTicket(Long issuedTicketId) {
+        return cache.get(issuedTicketId, this::fetchIssuedTicket);
+    }
+
+    public void invalidate(Long issuedTicketId) {
+        cache.invalidate(issuedTicketId);
+    }
+
+    // 4xx 는 유효하지 않은 티켓으로 보고 null, 타임아웃/서킷 OPEN/5xx 는 검증 불가로 503 을 돌려준다.
+    private IssuedTicketValidationResponse fetchIssuedTicket(Long issuedTicketId) {
         try {
-            return webClient.get()
-                    .uri(ticketServerUrl + "/tickets/issued/internal/{id}", issuedTicketId)
-                    .retrieve()
-                    .bodyToMono(IssuedTicketValidationResponse.class)
+            return downstreamHttp.get("ticket", "issued-ticket", () -> webClient.get()
+                            .uri(ticketServerUrl + "/tickets/issued/internal/{id}", issuedTicketId)
+                            .retrieve()
+                            .bodyToMono(IssuedTicketValidationResponse.class))
                     .block();
         } catch (Exception e) {
-            log.error("Failed to fetch issuedTicket {} from ticket-server: {}", issuedTicketId, e.getMessage());
-            return null;
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof WebClientResponseException w && w.getStatusCode().is4xxClientError()) {
+                log.warn("issuedTicket {} rejected by ticket-server: {}", issuedTicketId, w.getStatusCode());
+                return null;
+            }
+            log.error("Failed to fetch issuedTicket {} from ticket-server: {}", issuedTicketId, cause.getMessage());
+            throw new QueueException(ErrorCode.DOWNSTREAM_UNAVAILABLE);
         }
     }
 }
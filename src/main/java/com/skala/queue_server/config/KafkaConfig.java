@@ -1,36 +1,158 @@
 package com.skala.queue_server.config;
 
+import com.skala.queue_server.event.BufferedKafkaSender;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+@Slf4j
 @Configuration
 public class KafkaConfig {
 
     @Bean
-    public ProducerFactory<String, String> producerFactory(
-            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers
+    public ProducerFactory<String, byte[]> producerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+            @Value("${spring.kafka.producer.compression-type:lz4}") String compressionType,
+            @Value("${spring.kafka.producer.linger-ms:20}") int lingerMs,
+            @Value("${spring.kafka.producer.batch-size:131072}") int batchSize
     ) {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        // outbox 릴레이는 실패 시 재전송하므로 브로커 쪽 중복/순서 뒤바뀜을 idempotent producer 로 막는다.
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
 
         return new DefaultKafkaProducerFactory<>(config);
     }
 
     @Bean
-    public KafkaTemplate<String, String> kafkaTemplate(
-            ProducerFactory<String, String> producerFactory
+    public KafkaTemplate<String, byte[]> kafkaTemplate(
+            ProducerFactory<String, byte[]> producerFactory
     ) {
         return new KafkaTemplate<>(producerFactory);
     }
-}
\ No newline at end of file
+
+    // 소비자 공통 설정. group.id 는 리스너(또는 전용 컨테이너 팩토리)가 정한다.
+    @Bean
+    public ConsumerFactory<String, String> consumerFactory(
+            @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers
+    ) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        return factory;
+    }
+
+    // 놀이기구 메타/회차 토픽 전용 (AttractionEventConsumer). 파티션을 직접 배정(assign)받아 처음부터 다시 읽으므로
+    // group.id 가 없고, 오프셋을 커밋하지 않는다 (ack 를 호출하지 않는 MANUAL 모드). 다른 리스너는 기본 팩토리를 쓴다.
+    @Bean
+    @ConditionalOnProperty(name = "queue.attraction-events.enabled", havingValue = "true")
+    public ConcurrentKafkaListenerContainerFactory<String, String> attractionEventContainerFactory(
+            ConsumerFactory<String, String> consumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    // @KafkaListener topicPartitions 에서 토픽의 전체 파티션 목록을 구할 때 쓴다.
+    @Bean
+    @ConditionalOnProperty(name = "queue.attraction-events.enabled", havingValue = "true")
+    public AttractionEventPartitions attractionEventPartitions(
+            ConsumerFactory<String, String> consumerFactory,
+            @Value("${queue.attraction-events.metadata-timeout-ms:10000}") long metadataTimeoutMs
+    ) {
+        return new AttractionEventPartitions(consumerFactory, Duration.ofMillis(metadataTimeoutMs));
+    }
+
+    /**
+     * 토픽의 파티션 번호 목록. 리스너 등록(SpEL 평가) 중에 호출되므로 브로커에 닿지 않거나 토픽이 아직 없어도
+     * 기동을 막지 않고 파티션 0 만 배정한다 (압축 토픽은 최소 파티션 0 을 가진다). 이 경우 경고를 남기며,
+     * 파티션 수가 늘어난 것을 반영하려면 재기동이 필요하다.
+     */
+    public static class AttractionEventPartitions {
+
+        private static final String[] FALLBACK = {"0"};
+
+        private final ConsumerFactory<String, String> consumerFactory;
+        private final Duration timeout;
+
+        AttractionEventPartitions(ConsumerFactory<String, String> consumerFactory, Duration timeout) {
+            this.consumerFactory = consumerFactory;
+            this.timeout = timeout;
+        }
+
+        public String[] partitions(String topic) {
+            try (Consumer<String, String> consumer = consumerFactory.createConsumer()) {
+                List<PartitionInfo> infos = consumer.partitionsFor(topic, timeout);
+                if (infos == null || infos.isEmpty()) {
+                    log.warn("no partition metadata for topic={}, assigning partition 0 only", topic);
+                    return FALLBACK;
+                }
+                return infos.stream()
+                        .map(info -> String.valueOf(info.partition()))
+                        .toArray(String[]::new);
+            } catch (Exception e) {
+                log.warn("partition lookup failed for topic={}, assigning partition 0 only: {}", topic, e.getMessage());
+                return FALLBACK;
+            }
+        }
+    }
+
+    // 요청/스케줄러 스레드용 논블로킹 발행기 (메모리 링 + mmap spill 파일, 단일 발행 스레드)
+    // spill 파일은 인스턴스마다 따로 써야 하므로 기본 경로에 호스트 이름을 붙이고, 같은 파일을 두 프로세스가 열면 기동에 실패한다.
+    @Bean(destroyMethod = "close")
+    public BufferedKafkaSender bufferedKafkaSender(
+            KafkaTemplate<String, byte[]> kafkaTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${queue.publisher.memory-bytes:33554432}") int memoryBytes,
+            @Value("${queue.publisher.spill-path:${java.io.tmpdir}/queue-kafka-spill-${HOSTNAME:local}.dat}") String spillPath,
+            @Value("${queue.publisher.spill-bytes:268435456}") int spillBytes
+    ) throws IOException {
+        return new BufferedKafkaSender(kafkaTemplate, meterRegistry, memoryBytes, Path.of(spillPath), spillBytes);
+    }
+}
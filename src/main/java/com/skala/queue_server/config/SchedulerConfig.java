@@ -1,9 +1,14 @@
 package com.skala.queue_server.config;
 
+import com.skala.queue_server.util.HashedTimingWheel;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 public class SchedulerConfig {
 
@@ -15,4 +20,26 @@ public class SchedulerConfig {
         scheduler.initialize();
         return scheduler;
     }
+
+    // 놀이기구별 디스패치 실행기: 한 놀이기구의 블로킹 호출이 다른 놀이기구를 막지 않도록 작업마다 가상 스레드
+    @Bean(destroyMethod = "close")
+    public ExecutorService dispatchExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dispatch-", 0).factory());
+    }
+
+    // 요청 경로의 독립적인 원격 조회(티켓/메타/회차)를 병렬로 실행하기 위한 가상 스레드 실행기
+    @Bean(destroyMethod = "close")
+    public ExecutorService lookupExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("lookup-", 0).factory());
+    }
+
+    // 놀이기구별 회차 경계 타이머 (만료된 타이머는 dispatchExecutor 에서 병렬 실행)
+    @Bean(destroyMethod = "close")
+    public HashedTimingWheel dispatchTimerWheel(
+            ExecutorService dispatchExecutor,
+            @Value("${queue.dispatch.timer-tick-ms:20}") long tickMs,
+            @Value("${queue.dispatch.timer-wheel-size:512}") int wheelSize
+    ) {
+        return new HashedTimingWheel("dispatch-timer-wheel", tickMs, wheelSize, dispatchExecutor);
+    }
 }
@@ -1,15 +1,55 @@
 package com.skala.queue_server.config;
 
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class WebClientConfig {
 
+    // 다운스트림 전체가 공유하는 커넥션 풀: 대기 중인 획득 요청 수와 대기 시간을 제한해
+    // 느린 다운스트림이 요청 스레드를 무한정 붙잡지 않게 한다.
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider downstreamConnectionProvider(
+            @Value("${service.http.pool.max-connections:200}") int maxConnections,
+            @Value("${service.http.pool.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${service.http.pool.pending-acquire-timeout-ms:1000}") long pendingAcquireTimeoutMs,
+            @Value("${service.http.pool.max-idle-time-ms:30000}") long maxIdleTimeMs
+    ) {
+        return ConnectionProvider.builder("downstream")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient webClient(
+            ConnectionProvider downstreamConnectionProvider,
+            @Value("${service.http.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${service.http.response-timeout-ms:5000}") long responseTimeoutMs,
+            @Value("${service.http.h2c-enabled:false}") boolean h2cEnabled
+    ) {
+        HttpClient httpClient = HttpClient.create(downstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        if (h2cEnabled) {
+            // 다운스트림이 h2c 를 지원하면 하나의 커넥션에서 요청을 다중화한다.
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
@@ -0,0 +1,20 @@
+package com.skala.queue_server.dto;
+
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 브로드캐스트/사용자 인덱스 재구성용 활성 대기열 행 projection (엔티티 전체 대신 필요한 컬럼만 조회)
+ */
+@Getter
+@AllArgsConstructor
+public class ActiveQueueRow {
+    private Long attractionQueueId;
+    private Long userId;
+    private Long attractionId;
+    private TicketType ticketType;
+    private QueueStatus status;
+    private int deferCount;
+}
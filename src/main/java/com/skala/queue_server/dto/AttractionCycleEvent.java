@@ -0,0 +1,19 @@
+package com.skala.queue_server.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * attraction-cycle-event 페이로드: 놀이기구의 회차가 시작될 때 attraction-server 가 발행한다.
+ * startedAt 은 회차 시작 시각(epoch millis)이며, 없으면 수신 시각을 기준점으로 쓴다.
+ */
+@Getter
+@NoArgsConstructor
+public class AttractionCycleEvent {
+
+    private Long attractionId;
+    private Long attractionCycleId;
+    private Integer cycleNumber;
+    private String rideDate;
+    private Long startedAt;
+}
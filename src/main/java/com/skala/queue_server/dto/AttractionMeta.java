@@ -0,0 +1,27 @@
+package com.skala.queue_server.dto;
+
+import com.skala.queue_server.entity.TicketType;
+
+/**
+ * attraction:meta:{id} 해시의 타입 지정 불변 스냅샷
+ */
+public record AttractionMeta(
+        Long attractionId,
+        int cyclingTimeSeconds,
+        int capacityPremium,
+        int capacityBasic,
+        String attractionName
+) {
+
+    public int capacity(TicketType ticketType) {
+        return ticketType == TicketType.PREMIUM ? capacityPremium : capacityBasic;
+    }
+
+    public String displayName() {
+        return attractionName != null ? attractionName : "attraction-" + attractionId;
+    }
+
+    public AttractionMeta withAttractionName(String name) {
+        return new AttractionMeta(attractionId, cyclingTimeSeconds, capacityPremium, capacityBasic, name);
+    }
+}
@@ -0,0 +1,18 @@
+package com.skala.queue_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * NO_SHOW 스윕용 projection (keyset 커서인 updatedAt + attractionQueueId 와 인덱스/이벤트에 필요한 컬럼만 조회)
+ */
+@Getter
+@AllArgsConstructor
+public class ExpiredQueueRow {
+    private Long attractionQueueId;
+    private Long userId;
+    private Long attractionId;
+    private LocalDateTime updatedAt;
+}
@@ -14,8 +14,11 @@ import java.time.LocalDateTime;
 @Builder
 public class AttractionQueue {
 
+    // pooled-lo 시퀀스 (V2__attraction_queue_sequence.sql, INCREMENT BY 50 = allocationSize):
+    // IDENTITY 와 달리 INSERT 전에 ID 를 알 수 있어 Hibernate JDBC batching 이 가능하다.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attraction_queue_seq")
+    @SequenceGenerator(name = "attraction_queue_seq", sequenceName = "attraction_queue_seq", allocationSize = 50)
     @Column(name = "attraction_queue_id")
     private Long attractionQueueId;
 
@@ -0,0 +1,117 @@
+package com.skala.queue_server.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skala.queue_server.client.AttractionCycleCache;
+import com.skala.queue_server.dto.AttractionCycleEvent;
+import com.skala.queue_server.dto.AttractionMeta;
+import com.skala.queue_server.dto.AttractionResponse;
+import com.skala.queue_server.service.AttractionMetaCache;
+import com.skala.queue_server.service.AttractionSchedulerService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.AbstractConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * attraction-server 의 놀이기구 메타/회차 변경 토픽 구독.
+ *
+ * 두 토픽 모두 attractionId 키의 압축(compacted) 토픽으로 보고, 파티션을 배정받을 때마다 처음부터 읽어
+ * 놀이기구별 최신 메타와 현재 회차로 캐시를 채운 뒤 이후 변경분을 그대로 반영한다.
+ * 캐시는 레플리카마다 따로 있으므로 consumer group 없이 모든 파티션을 직접 배정(assign)받는다
+ * (기동할 때마다 group 이 새로 생기거나 리밸런스가 일어나지 않는다).
+ * handleMeta / handleCycle 은 Kafka 없이 페이로드 문자열만으로 호출할 수 있다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "queue.attraction-events.enabled", havingValue = "true")
+public class AttractionEventConsumer extends AbstractConsumerSeekAware {
+
+    private final AttractionSchedulerService schedulerService;
+    private final AttractionMetaCache attractionMetaCache;
+    private final AttractionCycleCache attractionCycleCache;
+    private final ObjectMapper objectMapper;
+    private final String metaTopic;
+
+    public AttractionEventConsumer(AttractionSchedulerService schedulerService,
+                                   AttractionMetaCache attractionMetaCache,
+                                   AttractionCycleCache attractionCycleCache,
+                                   ObjectMapper objectMapper,
+                                   @Value("${queue.attraction-events.meta-topic:attraction-meta-event}") String metaTopic) {
+        this.schedulerService = schedulerService;
+        this.attractionMetaCache = attractionMetaCache;
+        this.attractionCycleCache = attractionCycleCache;
+        this.objectMapper = objectMapper;
+        this.metaTopic = metaTopic;
+    }
+
+    @KafkaListener(containerFactory = "attractionEventContainerFactory", topicPartitions = {
+            @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${queue.attraction-events.meta-topic:attraction-meta-event}",
+                    partitions = "#{@attractionEventPartitions.partitions('${queue.attraction-events.meta-topic:attraction-meta-event}')}"),
+            @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${queue.attraction-events.cycle-topic:attraction-cycle-event}",
+                    partitions = "#{@attractionEventPartitions.partitions('${queue.attraction-events.cycle-topic:attraction-cycle-event}')}")
+    })
+    public void onMessage(ConsumerRecord<String, String> record) {
+        // 압축 토픽의 삭제 표시(tombstone)는 무시한다.
+        if (record.value() == null) return;
+        if (metaTopic.equals(record.topic())) {
+            handleMeta(record.value());
+        } else {
+            handleCycle(record.value());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        super.onPartitionsAssigned(assignments, callback);
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    public void handleMeta(String payload) {
+        try {
+            AttractionResponse event = objectMapper.readValue(payload, AttractionResponse.class);
+            if (event.getAttractionId() == null || event.getRidingTime() == null
+                    || event.getCapacityPremium() == null || event.getCapacityBasic() == null) {
+                log.warn("incomplete attraction meta event ignored: {}", payload);
+                return;
+            }
+            schedulerService.applyAttractionMeta(new AttractionMeta(
+                    event.getAttractionId(),
+                    event.getRidingTime(),
+                    event.getCapacityPremium(),
+                    event.getCapacityBasic(),
+                    event.getAttractionName()));
+            log.debug("applied attraction meta event attractionId={}", event.getAttractionId());
+        } catch (Exception e) {
+            log.warn("attraction meta event ignored: {} payload={}", e.getMessage(), payload);
+        }
+    }
+
+    public void handleCycle(String payload) {
+        try {
+            AttractionCycleEvent event = objectMapper.readValue(payload, AttractionCycleEvent.class);
+            if (event.getAttractionId() == null || event.getCycleNumber() == null || event.getRideDate() == null) {
+                log.warn("incomplete attraction cycle event ignored: {}", payload);
+                return;
+            }
+            AttractionMeta meta = attractionMetaCache.get(event.getAttractionId());
+            attractionCycleCache.apply(
+                    event.getAttractionId(),
+                    LocalDate.parse(event.getRideDate()),
+                    event.getCycleNumber(),
+                    event.getAttractionCycleId(),
+                    event.getStartedAt() != null ? event.getStartedAt() : System.currentTimeMillis(),
+                    meta != null ? meta.cyclingTimeSeconds() : 0);
+        } catch (Exception e) {
+            log.warn("attraction cycle event ignored: {} payload={}", e.getMessage(), payload);
+        }
+    }
+}
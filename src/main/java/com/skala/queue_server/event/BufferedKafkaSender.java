@@ -0,0 +1,241 @@
+package com.skala.queue_server.event;
+
+import com.skala.queue_server.util.ByteRing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 호출 스레드를 브로커에 묶지 않는 Kafka 발행기.
+ *
+ * send 는 레코드를 메모리 링에 복사만 하고 돌아온다. 메모리 링이 가득 차면 memory-mapped spill 파일에 이어 쓰고,
+ * spill 에 남은 레코드가 있는 동안에는 새 레코드도 spill 로 보내 전체 FIFO 순서(곧 키별 순서)를 지킨다.
+ * 단일 발행 스레드가 메모리 링 → spill 순으로 최대 BATCH_RECORDS 개를 (꺼내지 않고) 읽어 KafkaTemplate 에 넘기고,
+ * 브로커 ACK 를 받은 앞쪽 연속 구간만 링에서 지운다. 실패한 레코드부터는 잠시 뒤 다시 보내므로 순서가 유지되고,
+ * 전달은 at-least-once 이다. 프로듀서 버퍼가 차서 블로킹되는 것은 이 스레드뿐이다.
+ * 종료 시 메모리 링에 남은 레코드는 spill 앞쪽으로 옮겨 두고, spill 파일은 재시작 후 남은 레코드부터 이어서 발행한다.
+ * 둘 다 가득 차면 버리고 dropped 로 센다.
+ */
+@Slf4j
+public class BufferedKafkaSender implements AutoCloseable {
+
+    private static final long RETRY_BACKOFF_MS = 1000L;
+    private static final long ACK_TIMEOUT_MS   = 30000L;
+    private static final int BATCH_RECORDS     = 500;
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final ByteRing memory;
+    private final ByteRing spill;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Thread worker;
+    private final Counter sentCounter;
+    private final Counter replayedCounter;
+    private final Counter spilledCounter;
+    private final Counter droppedCounter;
+
+    private volatile boolean running = true;
+
+    public BufferedKafkaSender(KafkaTemplate<String, byte[]> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               int memoryBytes,
+                               Path spillPath,
+                               int spillBytes) throws IOException {
+        this.kafkaTemplate = kafkaTemplate;
+        this.memory = ByteRing.inMemory(memoryBytes);
+        this.spill = ByteRing.mapped(spillPath, spillBytes);
+        if (!spill.isEmpty()) {
+            log.warn("resuming {} bytes of spilled kafka records from {}", spill.usedBytes(), spillPath);
+        }
+
+        this.sentCounter = Counter.builder("queue.publisher.sent").register(meterRegistry);
+        this.replayedCounter = Counter.builder("queue.publisher.replayed")
+                .description("spill 파일에서 다시 발행한 레코드 수").register(meterRegistry);
+        this.spilledCounter = Counter.builder("queue.publisher.spilled").register(meterRegistry);
+        this.droppedCounter = Counter.builder("queue.publisher.dropped").register(meterRegistry);
+        Gauge.builder("queue.publisher.buffered_bytes", this, s -> s.usedBytes(s.memory))
+                .description("메모리 링에 쌓인 바이트").register(meterRegistry);
+        Gauge.builder("queue.publisher.spilled_bytes", this, s -> s.usedBytes(s.spill))
+                .description("spill 파일에 쌓인 바이트").register(meterRegistry);
+
+        this.worker = new Thread(this::run, "kafka-buffered-sender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // 브로커 상태와 무관하게 짧은 잠금 + 복사만 하고 돌아온다. 버리면 false.
+    public boolean send(String topic, String key, byte[] payload) {
+        byte[] record = encode(topic, key, payload);
+        lock.lock();
+        try {
+            if (spill.isEmpty() && memory.offer(record)) {
+                notEmpty.signal();
+                return true;
+            }
+            if (spill.offer(record)) {
+                spilledCounter.increment();
+                notEmpty.signal();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        droppedCounter.increment();
+        log.error("kafka buffer full, dropped record topic={} key={}", topic, key);
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            spillMemory();
+            spill.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 메모리 링의 레코드는 spill 에 남은 것보다 먼저 들어온 것이므로, spill 을 [메모리 링 + 기존 spill] 순으로 다시 쓴다.
+    private void spillMemory() {
+        if (memory.isEmpty()) return;
+        List<byte[]> pending = memory.peek(Integer.MAX_VALUE);
+        if (!spill.isEmpty()) {
+            pending.addAll(spill.peek(Integer.MAX_VALUE));
+            spill.clear();
+        }
+        int dropped = 0;
+        for (byte[] record : pending) {
+            if (!spill.offer(record)) dropped++;
+        }
+        memory.clear();
+        log.info("moved {} buffered kafka records to spill on shutdown", pending.size() - dropped);
+        if (dropped > 0) {
+            droppedCounter.increment(dropped);
+            log.error("spill full on shutdown, dropped {} newest kafka records", dropped);
+        }
+    }
+
+    private void run() {
+        while (running) {
+            ByteRing source;
+            List<byte[]> batch;
+            lock.lock();
+            try {
+                while (memory.isEmpty() && spill.isEmpty()) {
+                    notEmpty.await();
+                }
+                // spill 이 비어 있지 않은 동안 메모리 링에는 새 레코드가 들어오지 않으므로 메모리 링을 먼저 비운다.
+                source = memory.isEmpty() ? spill : memory;
+                batch = source.peek(BATCH_RECORDS);
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            int acked = dispatch(batch);
+            if (acked > 0) {
+                lock.lock();
+                try {
+                    for (int i = 0; i < acked; i++) source.pop();
+                } finally {
+                    lock.unlock();
+                }
+                sentCounter.increment(acked);
+                if (source == spill) replayedCounter.increment(acked);
+            }
+
+            if (acked < batch.size()) {
+                if (!running) return;
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // 배치 전체를 보내고 flush 한 뒤, 앞에서부터 연속으로 브로커 ACK 를 받은 개수를 돌려준다.
+    private int dispatch(List<byte[]> batch) {
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        try {
+            for (byte[] record : batch) {
+                ByteBuffer in = ByteBuffer.wrap(record);
+                String topic = readString(in, in.getShort());
+                int keyLength = in.getInt();
+                String key = keyLength < 0 ? null : readString(in, keyLength);
+                byte[] payload = Arrays.copyOfRange(record, in.position(), record.length);
+                futures.add(kafkaTemplate.send(topic, key, payload));
+            }
+            kafkaTemplate.flush();
+        } catch (Exception e) {
+            log.warn("kafka send rejected after {} of {} records, retrying: {}", futures.size(), batch.size(), e.getMessage());
+        }
+
+        int acked = 0;
+        for (CompletableFuture<SendResult<String, byte[]>> future : futures) {
+            try {
+                future.get(ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                acked++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("kafka send failed, retrying from record {} of {}: {}", acked, batch.size(), e.getMessage());
+                break;
+            }
+        }
+        return acked;
+    }
+
+    private int usedBytes(ByteRing ring) {
+        lock.lock();
+        try {
+            return ring.usedBytes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encode(String topic, String key, byte[] payloadBytes) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer out = ByteBuffer.allocate(2 + topicBytes.length + 4
+                + (keyBytes == null ? 0 : keyBytes.length) + payloadBytes.length);
+        out.putShort((short) topicBytes.length).put(topicBytes);
+        out.putInt(keyBytes == null ? -1 : keyBytes.length);
+        if (keyBytes != null) out.put(keyBytes);
+        out.put(payloadBytes);
+        return out.array();
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,144 @@
+package com.skala.queue_server.event;
+
+import com.skala.queue_server.redis.QueueRedisScripts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * queue_event_outbox → Kafka 릴레이.
+ *
+ * lease 를 잡은 레플리카 하나만 id 순으로 batch-size 개씩 읽어 한꺼번에 send 하고 (프로듀서 linger/batch/압축이 묶어 보냄),
+ * 앞에서부터 연속으로 ACK 된 행만 삭제한다. 실패한 행부터는 다음 주기에 다시 보내므로 같은 키의 순서가 유지되고,
+ * 전달은 at-least-once 이다 (브로커 중복은 idempotent producer 가 제거).
+ * queue.outbox.relayed(처리량), queue.outbox.pending / queue.outbox.lag_ms(가장 오래된 미발행 행의 나이)를 노출한다.
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    private static final String LEASE_KEY = "queue:outbox:relay_lease";
+    private static final String FENCE_KEY = "queue:outbox:relay_fence";
+
+    @Value("${queue.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    @Value("${queue.outbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${queue.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${queue.outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final QueueRedisScripts queueRedisScripts;
+    private final Counter relayedCounter;
+    private final Counter failedCounter;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       KafkaTemplate<String, byte[]> kafkaTemplate,
+                       QueueRedisScripts queueRedisScripts,
+                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.queueRedisScripts = queueRedisScripts;
+        this.relayedCounter = Counter.builder("queue.outbox.relayed").register(meterRegistry);
+        this.failedCounter = Counter.builder("queue.outbox.failed").register(meterRegistry);
+        Gauge.builder("queue.outbox.pending", pending, AtomicLong::get)
+                .description("아직 발행되지 않은 outbox 행 수").register(meterRegistry);
+        Gauge.builder("queue.outbox.lag_ms", lagMs, AtomicLong::get)
+                .description("가장 오래된 미발행 outbox 행의 나이").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${queue.outbox.poll-ms:100}")
+    public void relay() {
+        if (!outboxEnabled) return;
+
+        long fenceToken = queueRedisScripts.acquireLease(LEASE_KEY, FENCE_KEY, leaseMs);
+        if (fenceToken <= 0) return;
+        try {
+            while (true) {
+                List<OutboxRow> rows = jdbcTemplate.query(
+                        "SELECT outbox_id, topic, message_key, payload FROM queue_event_outbox " +
+                        "ORDER BY outbox_id LIMIT ?",
+                        (rs, i) -> new OutboxRow(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBytes(4)),
+                        batchSize);
+                if (rows.isEmpty()) break;
+
+                int sent = send(rows);
+                if (sent > 0) {
+                    List<Long> ids = rows.subList(0, sent).stream().map(OutboxRow::outboxId).toList();
+                    jdbcTemplate.update("DELETE FROM queue_event_outbox WHERE outbox_id IN (" +
+                            String.join(", ", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+                    relayedCounter.increment(sent);
+                }
+                if (sent < rows.size() || rows.size() < batchSize) break;
+            }
+        } catch (Exception e) {
+            log.error("outbox relay failed", e);
+        } finally {
+            queueRedisScripts.releaseLease(LEASE_KEY, fenceToken);
+        }
+        updateLag();
+    }
+
+    // 배치 전체를 비동기로 보내고 flush 한 뒤, 앞에서부터 연속으로 성공한 개수를 돌려준다.
+    private int send(List<OutboxRow> rows) {
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(rows.size());
+        for (OutboxRow row : rows) {
+            futures.add(kafkaTemplate.send(row.topic(), row.messageKey(), row.payload()));
+        }
+        kafkaTemplate.flush();
+
+        int sent = 0;
+        for (CompletableFuture<SendResult<String, byte[]>> future : futures) {
+            try {
+                future.get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                sent++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                failedCounter.increment(rows.size() - sent);
+                log.warn("outbox relay send failed outboxId={} topic={}: {}",
+                        rows.get(sent).outboxId(), rows.get(sent).topic(), e.getMessage());
+                break;
+            }
+        }
+        return sent;
+    }
+
+    private void updateLag() {
+        try {
+            jdbcTemplate.query("SELECT COUNT(*), MIN(created_at) FROM queue_event_outbox", rs -> {
+                pending.set(rs.getLong(1));
+                Timestamp oldest = rs.getTimestamp(2);
+                lagMs.set(oldest == null ? 0L : Math.max(System.currentTimeMillis() - oldest.getTime(), 0L));
+            });
+        } catch (Exception e) {
+            log.debug("outbox lag update failed: {}", e.getMessage());
+        }
+    }
+
+    private record OutboxRow(long outboxId, String topic, String messageKey, byte[] payload) {}
+}
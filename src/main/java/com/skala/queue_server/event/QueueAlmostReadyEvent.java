@@ -0,0 +1,15 @@
+package com.skala.queue_server.event;
+
+/**
+ * queue-almost-ready-event: cyclesBefore 회차 안에 차례가 오는 대기자에게 보내는 사전 안내.
+ */
+public record QueueAlmostReadyEvent(
+        Long attractionQueueId,
+        Long userId,
+        Long attractionId,
+        String attractionName,
+        String ticketType,
+        String status,
+        int cyclesBefore
+) {
+}
@@ -0,0 +1,15 @@
+package com.skala.queue_server.event;
+
+/**
+ * queue-available-event: 대기자가 이번 회차 탑승 대상(AVAILABLE)이 되었음을 알린다.
+ */
+public record QueueAvailableEvent(
+        Long attractionQueueId,
+        Long userId,
+        Long attractionId,
+        String attractionName,
+        String ticketType,
+        Long cycleId,
+        String status
+) {
+}
@@ -0,0 +1,27 @@
+package com.skala.queue_server.event;
+
+import java.util.List;
+
+/**
+ * queue-cycle-dispatch-event: 한 회차 디스패치 결과를 놀이기구 단위 메시지 하나로 묶는다.
+ *
+ * 탑승 대상 전원과 등급별 순번 변화(남은 대기자 전원이 rankShift 만큼 앞당겨짐, 새 맨 앞 대기자),
+ * 디스패치 직후 대기 현황을 함께 담아 consumer 가 사용자별 이벤트 없이 상태를 갱신할 수 있게 한다.
+ */
+public record QueueCycleDispatchEvent(
+        Long attractionId,
+        String attractionName,
+        Long cycleId,
+        long dispatchedAt,
+        List<Boarded> boarded,
+        List<Lane> lanes,
+        QueueStatusEvent waitingInfo
+) {
+
+    public record Boarded(Long attractionQueueId, Long userId, String ticketType) {
+    }
+
+    // headUserId: 새 맨 앞 대기자 (곧 차례 조회 범위가 이번 회차를 넘지 않거나 대기자가 없으면 null)
+    public record Lane(String ticketType, int rankShift, Long headUserId) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.skala.queue_server.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kafka 이벤트 페이로드 인코더.
+ *
+ * 이벤트 타입별 ObjectWriter 를 한 번만 만들어 재사용하고 (직렬화기 탐색 생략), writeValueAsBytes 는 Jackson 의
+ * 재활용 버퍼에 바로 써서 중간 String 없이 byte[] 를 만든다.
+ * queue.events.binary-topics 에 나열한 토픽은 JSON 대신 Smile(바이너리 JSON) 로 인코딩하므로
+ * 해당 토픽의 consumer 는 Smile 로 읽어야 한다.
+ */
+@Component
+public class QueueEventEncoder {
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final Set<String> binaryTopics;
+    private final Map<Class<?>, ObjectWriter> jsonWriters = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> smileWriters = new ConcurrentHashMap<>();
+
+    public QueueEventEncoder(ObjectMapper objectMapper,
+                             @Value("${queue.events.binary-topics:}") Set<String> binaryTopics) {
+        this.jsonMapper = objectMapper;
+        this.smileMapper = new ObjectMapper(new SmileFactory());
+        this.binaryTopics = Set.copyOf(binaryTopics);
+    }
+
+    public byte[] encode(String topic, Object event) throws JsonProcessingException {
+        return binaryTopics.contains(topic)
+                ? smileWriters.computeIfAbsent(event.getClass(), smileMapper::writerFor).writeValueAsBytes(event)
+                : jsonWriters.computeIfAbsent(event.getClass(), jsonMapper::writerFor).writeValueAsBytes(event);
+    }
+}
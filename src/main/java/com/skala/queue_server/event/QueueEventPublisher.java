@@ -0,0 +1,64 @@
+package com.skala.queue_server.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대기열 Kafka 이벤트 발행 진입점.
+ *
+ * queue.outbox.enabled=true(기본) 이면 queue_event_outbox 에 INSERT 만 한다. 호출 트랜잭션이 있으면 같은 트랜잭션에
+ * 묶이므로 롤백된 상태 전이의 이벤트는 나가지 않고, 커밋된 이벤트는 OutboxRelay 가 브로커 장애가 지나간 뒤에도 발행한다.
+ * 비활성화하면 BufferedKafkaSender 에 넘겨 호출 스레드가 브로커를 기다리지 않게 한다.
+ * 같은 토픽/키의 이벤트를 이 진입점과 다른 경로로 섞어 보내면 순서가 보장되지 않으므로, 모든 대기열 이벤트는 여기를 거친다.
+ */
+@Component
+public class QueueEventPublisher {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO queue_event_outbox (topic, message_key, payload) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BufferedKafkaSender bufferedKafkaSender;
+    private final boolean outboxEnabled;
+
+    public QueueEventPublisher(JdbcTemplate jdbcTemplate,
+                               BufferedKafkaSender bufferedKafkaSender,
+                               @Value("${queue.outbox.enabled:true}") boolean outboxEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bufferedKafkaSender = bufferedKafkaSender;
+        this.outboxEnabled = outboxEnabled;
+    }
+
+    public void publish(String topic, String key, byte[] payload) {
+        if (outboxEnabled) {
+            jdbcTemplate.update(INSERT_SQL, topic, key, payload);
+            return;
+        }
+        bufferedKafkaSender.send(topic, key, payload);
+    }
+
+    // 여러 건을 같은 순서로 발행한다. outbox 면 배치 INSERT 한 번, 아니면 링에 차례로 넣고 들어간 건수를 돌려준다.
+    public int publishAll(String topic, List<Message> messages) {
+        if (messages.isEmpty()) return 0;
+        if (outboxEnabled) {
+            List<Object[]> args = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                args.add(new Object[]{topic, message.key(), message.payload()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            return messages.size();
+        }
+        int accepted = 0;
+        for (Message message : messages) {
+            if (!bufferedKafkaSender.send(topic, message.key(), message.payload())) break;
+            accepted++;
+        }
+        return accepted;
+    }
+
+    public record Message(String key, byte[] payload) {}
+}
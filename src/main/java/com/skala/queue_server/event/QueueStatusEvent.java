@@ -0,0 +1,21 @@
+package com.skala.queue_server.event;
+
+import com.skala.queue_server.dto.WaitingInfoResponse;
+
+/**
+ * queue-status-event: 회차 디스패치 후 놀이기구별 대기 현황.
+ */
+public record QueueStatusEvent(
+        Long attractionId,
+        Integer waitingMinutesPremium,
+        Integer waitingMinutesBasic,
+        Integer queueCountPremium,
+        Integer queueCountBasic
+) {
+
+    public static QueueStatusEvent from(WaitingInfoResponse info) {
+        return new QueueStatusEvent(info.getAttractionId(),
+                info.getWaitingMinutesPremium(), info.getWaitingMinutesBasic(),
+                info.getQueueCountPremium(), info.getQueueCountBasic());
+    }
+}
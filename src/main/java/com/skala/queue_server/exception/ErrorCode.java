@@ -24,7 +24,8 @@ public enum ErrorCode {
     DEFER_LIMIT_EXCEEDED(HttpStatus.CONFLICT,            "미루기 횟수를 초과했습니다."),
     QUEUE_STATUS_NOT_AVAILABLE(HttpStatus.CONFLICT,      "현재 미루기가 불가능한 상태입니다."),
     QUEUE_ALREADY_COMPLETED(HttpStatus.CONFLICT,         "이미 탑승했습니다."),
-    INVALID_RIDE_CODE(HttpStatus.CONFLICT,               "탑승 코드가 올바르지 않습니다.");
+    INVALID_RIDE_CODE(HttpStatus.CONFLICT,               "탑승 코드가 올바르지 않습니다."),
+    DOWNSTREAM_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "연동 서버가 일시적으로 응답하지 않습니다. 잠시 후 다시 시도해주세요.");
 
     private final HttpStatus httpStatus;
     private final String message;
@@ -0,0 +1,242 @@
+package com.skala.queue_server.redis;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 대기열 ZSET 을 다루는 Lua 스크립트 실행기.
+ *
+ * RedisTemplate 은 스크립트 SHA 를 캐시해 EVALSHA 로 호출하고, 서버에 스크립트가 없으면 EVAL 로 재시도한다.
+ * ZSET member 는 RedisTemplate value serializer 로 직렬화된 값이 저장되므로 member 인자만 같은 serializer 로
+ * 직렬화하고, 나머지 숫자/필드명 인자는 Lua 에서 그대로 읽을 수 있도록 UTF-8 문자열로 넘긴다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueueRedisScripts {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ENQUEUE =
+            RedisScript.of(new ClassPathResource("scripts/enqueue.lua"), List.class);
+    private static final RedisScript<Long> DEFER =
+            RedisScript.of(new ClassPathResource("scripts/defer.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DISPATCH_POP =
+            RedisScript.of(new ClassPathResource("scripts/dispatch_pop.lua"), List.class);
+    private static final RedisScript<Long> LEAVE =
+            RedisScript.of(new ClassPathResource("scripts/leave.lua"), Long.class);
+    private static final RedisScript<Long> SET_USER_STATUS =
+            RedisScript.of(new ClassPathResource("scripts/set_user_status.lua"), Long.class);
+    private static final RedisScript<Long> HSET_IF_EXISTS =
+            RedisScript.of(new ClassPathResource("scripts/hset_if_exists.lua"), Long.class);
+    private static final RedisScript<Long> HDEL_IF_MATCHES =
+            RedisScript.of(new ClassPathResource("scripts/hdel_if_matches.lua"), Long.class);
+    private static final RedisScript<Long> ACQUIRE_LEASE =
+            RedisScript.of(new ClassPathResource("scripts/acquire_lease.lua"), Long.class);
+    private static final RedisScript<Long> RENEW_LEASE =
+            RedisScript.of(new ClassPathResource("scripts/renew_lease.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_LEASE =
+            RedisScript.of(new ClassPathResource("scripts/release_lease.lua"), Long.class);
+
+    private static final RedisSerializer<Object> ARGS_SERIALIZER = new RawArgsSerializer();
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // ── 대기열 등록: 중복 확인(사용자 인덱스) + 메타 조회 + ZADD + 인덱스 기록 + 순번 조회를 한 번의 EVALSHA 로 ──
+    // 기존: hasKey, ZCARD, ZADD, ZRANK, HGET x3 → 7회 왕복 / 스크립트: 1회 왕복
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EnqueueResult enqueue(String queueKey, String metaKey, String userIndexKey, Long userId,
+                                 String capacityField, Long attractionId, String indexValue) {
+        List<Object> result = redisTemplate.execute(ENQUEUE, ARGS_SERIALIZER, (RedisSerializer) valueSerializer(),
+                List.of(queueKey, metaKey, userIndexKey),
+                member(userId), String.valueOf(System.currentTimeMillis()), capacityField,
+                attractionId.toString(), indexValue);
+        if (result == null || result.size() < 5) {
+            return new EnqueueResult(-1, 0, -1, 0, 0);
+        }
+        return new EnqueueResult(
+                toInt(result.get(0)),
+                toInt(result.get(1)),
+                toInt(result.get(2)),
+                toInt(result.get(3)),
+                toInt(result.get(4)));
+    }
+
+    // ── 대기 미루기: 목표 순번의 이웃 score 사이에 재배치 (대기열 길이와 무관하게 상수 개 명령) ──
+    public int deferByShift(String queueKey, String userIndexKey, Long userId, int shift,
+                            Long attractionId, String indexValue) {
+        Long newPosition = redisTemplate.execute(DEFER, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(queueKey, userIndexKey),
+                member(userId), String.valueOf(shift), String.valueOf(System.currentTimeMillis()),
+                attractionId.toString(), indexValue);
+        return newPosition == null ? 0 : newPosition.intValue();
+    }
+
+    // ── 대기열 이탈 (취소/탑승 완료): ZREM + 사용자 인덱스 필드 삭제 ──
+    public void leave(String queueKey, String userIndexKey, Long userId, Long attractionId) {
+        redisTemplate.execute(LEAVE, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(queueKey, userIndexKey), member(userId), attractionId.toString());
+    }
+
+    // ── 여러 사용자의 인덱스 상태 일괄 변경 (status 가 null 이면 필드 삭제) ──
+    public int setUserStatus(List<String> userIndexKeys, Long attractionId, String status) {
+        if (userIndexKeys.isEmpty()) return 0;
+        Long changed = redisTemplate.execute(SET_USER_STATUS, ARGS_SERIALIZER, LONG_RESULT,
+                userIndexKeys, attractionId.toString(), status == null ? "" : status);
+        return changed == null ? 0 : changed.intValue();
+    }
+
+    // ── 해시가 있을 때만 필드 하나 기록 (EXISTS + HSET 원자 실행) ──
+    public boolean setFieldIfExists(String key, String field, String value) {
+        Long written = redisTemplate.execute(HSET_IF_EXISTS, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(key), field, value);
+        return written != null && written == 1L;
+    }
+
+    // 사용자 인덱스 compare-and-delete: 1 = 지움, 0 = 값이 달라 유지, -1 = 필드 없음
+    public long deleteUserEntryIfMatches(String userIndexKey, Long attractionId, String status, Long attractionQueueId) {
+        Long result = redisTemplate.execute(HDEL_IF_MATCHES, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(userIndexKey), attractionId.toString(), status, attractionQueueId.toString());
+        return result == null ? 0L : result;
+    }
+
+    // ── 회차 디스패치: 펜싱 토큰 검증 + 탑승 인원 ZPOPMIN + 곧 차례 안내 대상 조회를 한 번의 EVALSHA 로 ──
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DispatchBatch popForDispatch(String queueKey, String fenceKey, long fenceToken,
+                                        int capacity, int almostReadyEnd) {
+        List<Object> result = redisTemplate.execute(DISPATCH_POP, ARGS_SERIALIZER, (RedisSerializer) ARGS_SERIALIZER,
+                List.of(queueKey, fenceKey),
+                String.valueOf(capacity), String.valueOf(almostReadyEnd), String.valueOf(fenceToken));
+        if (result == null || result.size() < 3) {
+            return new DispatchBatch(List.of(), List.of(), false);
+        }
+        if (toInt(result.get(2)) == 1) {
+            return new DispatchBatch(List.of(), List.of(), true);
+        }
+
+        List<Object> poppedRaw = (List<Object>) result.get(0);
+        List<ZSetOperations.TypedTuple<String>> boarded = new ArrayList<>(poppedRaw.size() / 2);
+        for (int i = 0; i + 1 < poppedRaw.size(); i += 2) {
+            String member = fromMember(poppedRaw.get(i));
+            double score = Double.parseDouble(new String((byte[]) poppedRaw.get(i + 1), StandardCharsets.UTF_8));
+            boarded.add(ZSetOperations.TypedTuple.of(member, score));
+        }
+
+        List<Object> almostReadyRaw = (List<Object>) result.get(1);
+        List<String> almostReady = new ArrayList<>(almostReadyRaw.size());
+        for (Object raw : almostReadyRaw) {
+            almostReady.add(fromMember(raw));
+        }
+        return new DispatchBatch(boarded, almostReady, false);
+    }
+
+    // 디스패치 트랜잭션이 롤백되면 꺼낸 member 를 원래 score 로 되돌린다.
+    public void restore(String queueKey, List<ZSetOperations.TypedTuple<String>> members) {
+        if (members.isEmpty()) return;
+        redisTemplate.opsForZSet().add(queueKey, new HashSet<>(members));
+    }
+
+    // ── lease 획득: 비어 있을 때만 잡고 단조 증가하는 펜싱 토큰을 발급 (0 이면 실패) ──
+    public long acquireLease(String leaseKey, String fenceKey, long leaseMs) {
+        Long token = redisTemplate.execute(ACQUIRE_LEASE, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(leaseKey, fenceKey), String.valueOf(leaseMs));
+        return token == null ? 0L : token;
+    }
+
+    // ── lease 연장: 값이 내 펜싱 토큰일 때만 PEXPIRE (false 면 lease 를 잃은 것) ──
+    public boolean renewLease(String leaseKey, long fenceToken, long leaseMs) {
+        Long renewed = redisTemplate.execute(RENEW_LEASE, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(leaseKey), String.valueOf(fenceToken), String.valueOf(leaseMs));
+        return renewed != null && renewed > 0;
+    }
+
+    // ── lease 해제: 값이 내 펜싱 토큰일 때만 DEL ──
+    public boolean releaseLease(String leaseKey, long fenceToken) {
+        Long released = redisTemplate.execute(RELEASE_LEASE, ARGS_SERIALIZER, LONG_RESULT,
+                List.of(leaseKey), String.valueOf(fenceToken));
+        return released != null && released > 0;
+    }
+
+    private String fromMember(Object raw) {
+        return valueSerializer().deserialize((byte[]) raw);
+    }
+
+    private byte[] member(Long userId) {
+        return valueSerializer().serialize(userId.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<String> valueSerializer() {
+        return (RedisSerializer<String>) redisTemplate.getValueSerializer();
+    }
+
+    private static int toInt(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number n) return n.intValue();
+        return Integer.parseInt(value.toString());
+    }
+
+    /**
+     * @param boarded     이번 회차에 탑승할 member 와 원래 score (순번 순)
+     * @param almostReady 곧 차례가 될 member (순번 순)
+     * @param fenced      더 새로운 펜싱 토큰이 발급되어 아무것도 꺼내지 않았는지 여부
+     */
+    public record DispatchBatch(List<ZSetOperations.TypedTuple<String>> boarded, List<String> almostReady,
+                                boolean fenced) {
+
+        public List<Long> boardedUserIds() {
+            return boarded.stream().map(t -> Long.parseLong(t.getValue())).toList();
+        }
+    }
+
+    /**
+     * @param status          1 = 신규 등록, 0 = 이미 ZSET 에 존재, -1 = 메타 없음, -2 = 이미 활성 대기열 있음
+     * @param queueSizeBefore 등록 직전 대기열 크기
+     * @param rank            0-base 순번 (내 앞 대기 인원)
+     */
+    public record EnqueueResult(int status, int queueSizeBefore, int rank, int capacity, int cyclingTimeSeconds) {
+
+        public boolean metaMissing() {
+            return status == -1;
+        }
+
+        public boolean alreadyQueued() {
+            return status == -2;
+        }
+
+        public boolean added() {
+            return status == 1;
+        }
+
+        public int position() {
+            return rank < 0 ? 0 : rank + 1;
+        }
+    }
+
+    // member 는 미리 직렬화된 byte[] 로, 나머지 인자는 UTF-8 문자열로 전달한다.
+    private static final class RawArgsSerializer implements RedisSerializer<Object> {
+
+        @Override
+        public byte[] serialize(Object value) {
+            if (value == null) return null;
+            if (value instanceof byte[] bytes) return bytes;
+            return value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public Object deserialize(byte[] bytes) {
+            return bytes;
+        }
+    }
+}
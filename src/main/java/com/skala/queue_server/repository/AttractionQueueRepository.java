@@ -1,13 +1,21 @@
 package com.skala.queue_server.repository;
 
+import com.skala.queue_server.dto.ActiveQueueRow;
+import com.skala.queue_server.dto.ExpiredQueueRow;
 import com.skala.queue_server.entity.AttractionQueue;
 import com.skala.queue_server.entity.QueueStatus;
 import com.skala.queue_server.entity.TicketType;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +29,23 @@ public interface AttractionQueueRepository extends JpaRepository<AttractionQueue
     @Query("SELECT DISTINCT q.userId FROM AttractionQueue q WHERE q.status IN :statuses")
     List<Long> findDistinctUserIdsByStatusIn(@Param("statuses") List<QueueStatus> statuses);
 
+    @Query("SELECT new com.skala.queue_server.dto.ActiveQueueRow(q.attractionQueueId, q.userId, q.attractionId, q.ticketType, q.status, q.deferCount) " +
+            "FROM AttractionQueue q WHERE q.status IN :statuses ORDER BY q.userId, q.attractionQueueId")
+    List<ActiveQueueRow> findActiveRowsByStatusIn(@Param("statuses") List<QueueStatus> statuses);
+
+    // 브로드캐스트: 활성 행이 있는 사용자 ID 의 userId keyset 페이지 (idx_user_id 범위 스캔)
+    @Query("SELECT DISTINCT q.userId FROM AttractionQueue q WHERE q.status IN :statuses AND q.userId > :afterUserId " +
+            "ORDER BY q.userId")
+    List<Long> findActiveUserIdsAfter(@Param("statuses") List<QueueStatus> statuses,
+                                      @Param("afterUserId") Long afterUserId,
+                                      Pageable pageable);
+
+    // 사용자 인덱스가 준비되지 않았을 때(재구성 전)의 DB 대체 조회, 브로드캐스트 페이지의 행 조회
+    @Query("SELECT new com.skala.queue_server.dto.ActiveQueueRow(q.attractionQueueId, q.userId, q.attractionId, q.ticketType, q.status, q.deferCount) " +
+            "FROM AttractionQueue q WHERE q.userId IN :userIds AND q.status IN :statuses")
+    List<ActiveQueueRow> findActiveRowsByUserIdIn(@Param("userIds") Collection<Long> userIds,
+                                                  @Param("statuses") List<QueueStatus> statuses);
+
     boolean existsByUserIdAndAttractionIdAndStatusIn(
             Long userId, Long attractionId, List<QueueStatus> statuses);
 
@@ -28,11 +53,83 @@ public interface AttractionQueueRepository extends JpaRepository<AttractionQueue
 
     List<AttractionQueue> findByStatusAndUpdatedAtBefore(QueueStatus status, LocalDateTime before);
 
+    // NO_SHOW 스윕: (updatedAt, attractionQueueId) keyset 페이지 (idx_status_updated_at 범위 스캔)
+    @Query("SELECT new com.skala.queue_server.dto.ExpiredQueueRow(q.attractionQueueId, q.userId, q.attractionId, q.updatedAt) " +
+            "FROM AttractionQueue q WHERE q.status = :status AND q.updatedAt < :before " +
+            "AND (q.updatedAt > :afterUpdatedAt OR (q.updatedAt = :afterUpdatedAt AND q.attractionQueueId > :afterId)) " +
+            "ORDER BY q.updatedAt, q.attractionQueueId")
+    List<ExpiredQueueRow> findExpiredChunk(@Param("status") QueueStatus status,
+                                           @Param("before") LocalDateTime before,
+                                           @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // NO_SHOW 처리 직전에 아직 만료 조건을 만족하는 행만 잠가 돌려준다 (같은 트랜잭션의 markNoShow 가 바꿀 행과 일치).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q.attractionQueueId FROM AttractionQueue q WHERE q.attractionQueueId IN :ids " +
+            "AND q.status = com.skala.queue_server.entity.QueueStatus.AVAILABLE AND q.updatedAt < :before")
+    List<Long> lockExpiredAvailable(@Param("ids") Collection<Long> ids,
+                                    @Param("before") LocalDateTime before);
+
+    // 만료 조건을 UPDATE 에서도 다시 확인해, 조회 이후 미루기/탑승 완료된 행은 건드리지 않는다.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttractionQueue q SET q.status = com.skala.queue_server.entity.QueueStatus.NO_SHOW, q.updatedAt = :now " +
+            "WHERE q.attractionQueueId IN :ids " +
+            "AND q.status = com.skala.queue_server.entity.QueueStatus.AVAILABLE AND q.updatedAt < :before")
+    int markNoShow(@Param("ids") Collection<Long> ids,
+                   @Param("before") LocalDateTime before,
+                   @Param("now") LocalDateTime now);
+
     List<AttractionQueue> findByStatusIn(List<QueueStatus> statuses);
 
     List<AttractionQueue> findByAttractionIdAndTicketTypeAndStatus(
             Long attractionId, TicketType ticketType, QueueStatus status);
 
+    List<AttractionQueue> findByAttractionIdAndTicketTypeAndStatusAndUserIdIn(
+            Long attractionId, TicketType ticketType, QueueStatus status, Collection<Long> userIds);
+
+    // 디스패치 직전에 아직 status 인 행만 잠가 돌려준다 (같은 트랜잭션의 transitionWithCycle 이 바꿀 행과 일치).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q.attractionQueueId FROM AttractionQueue q WHERE q.attractionQueueId IN :ids AND q.status = :status")
+    List<Long> lockByStatus(@Param("ids") Collection<Long> ids,
+                            @Param("status") QueueStatus status);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttractionQueue q SET q.status = :to, q.attractionCycleId = :cycleId, q.updatedAt = :now " +
+            "WHERE q.attractionQueueId IN :ids AND q.status = :from")
+    int transitionWithCycle(@Param("ids") Collection<Long> ids,
+                            @Param("from") QueueStatus from,
+                            @Param("to") QueueStatus to,
+                            @Param("cycleId") Long cycleId,
+                            @Param("now") LocalDateTime now);
+
+    // 단건 상태 전이 (사용자 인덱스에서 읽은 행 ID 기준, 현재 상태가 from 중 하나일 때만)
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttractionQueue q SET q.status = :to, q.updatedAt = :now " +
+            "WHERE q.attractionQueueId = :id AND q.status IN :from")
+    int transition(@Param("id") Long id,
+                   @Param("from") Collection<QueueStatus> from,
+                   @Param("to") QueueStatus to,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttractionQueue q SET q.status = com.skala.queue_server.entity.QueueStatus.WAITING, " +
+            "q.deferCount = q.deferCount + 1, q.attractionCycleId = :cycleId, q.updatedAt = :now " +
+            "WHERE q.attractionQueueId = :id AND q.status IN :from")
+    int applyDefer(@Param("id") Long id,
+                   @Param("from") Collection<QueueStatus> from,
+                   @Param("cycleId") Long cycleId,
+                   @Param("now") LocalDateTime now);
+
+    // 커밋 이후 비동기로 확정한 탑승 예정 회차를 채운다. 그 사이 디스패치/미루기로 회차가 정해졌으면 덮어쓰지 않는다.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AttractionQueue q SET q.attractionCycleId = :cycleId " +
+            "WHERE q.attractionQueueId = :id AND q.status = :status AND q.attractionCycleId IS NULL")
+    int assignCycleIdIfUnset(@Param("id") Long id,
+                             @Param("status") QueueStatus status,
+                             @Param("cycleId") Long cycleId);
+
     Optional<AttractionQueue> findFirstByUserIdAndAttractionIdAndTicketTypeAndStatusOrderByCreatedAtDesc(
             Long userId, Long attractionId, TicketType ticketType, QueueStatus status);
 
@@ -0,0 +1,242 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.client.AttractionClient;
+import com.skala.queue_server.dto.AttractionMeta;
+import com.skala.queue_server.dto.AttractionResponse;
+import com.skala.queue_server.redis.QueueRedisScripts;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 놀이기구 메타 near-cache.
+ *
+ * attraction:meta:{id} 해시를 프로세스 안에 타입 지정 불변 객체로 들고 있으며,
+ * 메타가 등록/변경되면 attraction:meta:invalidate 채널로 모든 레플리카의 캐시를 무효화한다.
+ * 채널 메시지는 티켓 무효화 채널과 같이 attractionId 평문(UTF-8)이다.
+ * Redis 를 읽는 동안 무효화가 지나가면 읽은 값을 캐시에 넣지 않고(무효화 카운터 비교),
+ * 무효화 메시지를 놓친 경우에 대비해 항목은 cache-ttl-ms 가 지나면 Redis 에서 다시 읽는다.
+ * Redis 에도 없는 메타는 attraction-server 에서 받아오며, 같은 놀이기구에 대한 동시 요청은
+ * 한 번의 호출로 합쳐진다 (single-flight).
+ * attraction-meta-event 를 구독하면 apply 로 변경분이 바로 반영되어 attraction-server 조회가 필요 없어진다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttractionMetaCache {
+
+    private static final String META_KEY            = "attraction:meta:%d";
+    private static final String ACTIVE_ATTRACTIONS  = "attraction:active_ids";
+    private static final String INVALIDATE_CHANNEL  = "attraction:meta:invalidate";
+    private static final byte[] INVALIDATE_CHANNEL_BYTES = INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8);
+
+    @Value("${queue.attraction-meta.cache-ttl-ms:60000}")
+    private long cacheTtlMs;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final AttractionClient attractionClient;
+    private final QueueRedisScripts queueRedisScripts;
+
+    private final Map<Long, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Map<Long, CompletableFuture<AttractionMeta>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Long> nameLookupsInFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+                evict(Long.parseLong(body));
+            } catch (Exception e) {
+                log.warn("attraction meta invalidation ignored: {}", e.getMessage());
+            }
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    // ── 조회: 로컬 캐시 → Redis 해시 (없으면 null) ───────────────────────────
+    public AttractionMeta get(Long attractionId) {
+        long now = System.currentTimeMillis();
+        Cached cached = cache.get(attractionId);
+        if (cached != null && now - cached.loadedAt() < cacheTtlMs) return cached.meta();
+
+        // 읽는 사이 무효화가 지나갔으면 방금 읽은 값이 이미 낡았을 수 있으므로 캐시에 넣지 않는다.
+        long epoch = invalidations.get();
+        AttractionMeta loaded = loadFromRedis(attractionId);
+        if (loaded != null) {
+            cache.compute(attractionId, (id, current) ->
+                    invalidations.get() == epoch ? new Cached(loaded, now) : current);
+        }
+        return loaded;
+    }
+
+    // ── 조회: 로컬 캐시 → Redis 해시 → attraction-server (single-flight) ─────
+    public AttractionMeta getOrFetch(Long attractionId) {
+        AttractionMeta meta = get(attractionId);
+        if (meta != null) return meta;
+
+        CompletableFuture<AttractionMeta> mine = new CompletableFuture<>();
+        CompletableFuture<AttractionMeta> existing = inFlight.putIfAbsent(attractionId, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                return null;
+            }
+        }
+        try {
+            AttractionMeta fetched = fetchAndStore(attractionId);
+            mine.complete(fetched);
+            return fetched;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(attractionId, mine);
+        }
+    }
+
+    // ── 등록/변경: Redis 해시 갱신 + 전 레플리카 캐시 무효화 ─────────────────
+    public void register(Long attractionId, int cyclingTimeSeconds, int capacityPremium, int capacityBasic) {
+        String metaKey = String.format(META_KEY, attractionId);
+        Map<String, String> fields = new HashMap<>();
+        fields.put("cyclingTimeSeconds", String.valueOf(cyclingTimeSeconds));
+        fields.put("capacityPremium",    String.valueOf(capacityPremium));
+        fields.put("capacityBasic",      String.valueOf(capacityBasic));
+        redisTemplate.opsForHash().putAll(metaKey, fields);
+        redisTemplate.opsForSet().add(ACTIVE_ATTRACTIONS, attractionId.toString());
+        invalidate(attractionId);
+    }
+
+    // ── push 반영: 모든 레플리카가 같은 이벤트를 받으므로 무효화 브로드캐스트 없이 Redis + 로컬만 갱신 ──
+    public void apply(AttractionMeta meta) {
+        Cached previous = cache.get(meta.attractionId());
+        AttractionMeta merged = meta.attractionName() == null && previous != null
+                ? meta.withAttractionName(previous.meta().attractionName())
+                : meta;
+        writeHash(merged);
+        cache.put(merged.attractionId(), new Cached(merged, System.currentTimeMillis()));
+    }
+
+    // Redis 해시가 사라졌을 때(예: Redis 재시작) 로컬 값 또는 attraction-server 값으로 다시 채운다.
+    public AttractionMeta repopulate(Long attractionId) {
+        Cached cached = cache.get(attractionId);
+        if (cached == null) return getOrFetch(attractionId);
+        store(cached.meta());
+        return cached.meta();
+    }
+
+    // 값 직렬화기(JDK)를 거치지 않고 attractionId 평문을 그대로 발행한다.
+    public void invalidate(Long attractionId) {
+        evict(attractionId);
+        byte[] body = attractionId.toString().getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(INVALIDATE_CHANNEL_BYTES, body));
+    }
+
+    // 카운터를 먼저 올려야 진행 중인 get 이 제거 직후 낡은 값을 다시 넣지 못한다.
+    private void evict(Long attractionId) {
+        invalidations.incrementAndGet();
+        cache.remove(attractionId);
+    }
+
+    // 이름이 없는 메타는 요청 스레드를 막지 않고 attraction-server 에서 비동기로 받아 채워 둔다.
+    // 그 사이 메타 해시가 만료/삭제되었으면 이름만 쓰지 않고 (정원 없는 부분 해시가 생기므로) 받은 응답으로 전체 메타를 저장한다.
+    public void refreshNameAsync(Long attractionId) {
+        if (!nameLookupsInFlight.add(attractionId)) return;
+        attractionClient.getAttractionAsync(attractionId)
+                .doFinally(signal -> nameLookupsInFlight.remove(attractionId))
+                .subscribe(
+                        attraction -> {
+                            if (attraction.getAttractionName() == null) return;
+                            if (queueRedisScripts.setFieldIfExists(String.format(META_KEY, attractionId),
+                                    "attractionName", attraction.getAttractionName())) {
+                                invalidate(attractionId);
+                            } else {
+                                store(toMeta(attractionId, attraction));
+                                log.info("restored attraction meta from attraction-server attractionId={}", attractionId);
+                            }
+                        },
+                        err -> log.warn("Failed to refresh attraction name {}: {}", attractionId, err.getMessage()));
+    }
+
+    private AttractionMeta fetchAndStore(Long attractionId) {
+        AttractionResponse attraction = attractionClient.getAttraction(attractionId);
+        if (attraction == null) return null;
+
+        AttractionMeta meta = toMeta(attractionId, attraction);
+        store(meta);
+        log.info("cached attraction meta from attraction-server attractionId={}", attractionId);
+        return meta;
+    }
+
+    private static AttractionMeta toMeta(Long attractionId, AttractionResponse attraction) {
+        return new AttractionMeta(
+                attractionId,
+                orZero(attraction.getRidingTime()),
+                orZero(attraction.getCapacityPremium()),
+                orZero(attraction.getCapacityBasic()),
+                attraction.getAttractionName());
+    }
+
+    private void store(AttractionMeta meta) {
+        writeHash(meta);
+        invalidate(meta.attractionId());
+        cache.put(meta.attractionId(), new Cached(meta, System.currentTimeMillis()));
+    }
+
+    private void writeHash(AttractionMeta meta) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("cyclingTimeSeconds", String.valueOf(meta.cyclingTimeSeconds()));
+        fields.put("capacityPremium",    String.valueOf(meta.capacityPremium()));
+        fields.put("capacityBasic",      String.valueOf(meta.capacityBasic()));
+        if (meta.attractionName() != null) {
+            fields.put("attractionName", meta.attractionName());
+        }
+        redisTemplate.opsForHash().putAll(String.format(META_KEY, meta.attractionId()), fields);
+        redisTemplate.opsForSet().add(ACTIVE_ATTRACTIONS, meta.attractionId().toString());
+    }
+
+    private AttractionMeta loadFromRedis(Long attractionId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(String.format(META_KEY, attractionId));
+        if (entries == null || entries.isEmpty()) return null;
+
+        Object name = entries.get("attractionName");
+        return new AttractionMeta(
+                attractionId,
+                parseInt(entries.get("cyclingTimeSeconds")),
+                parseInt(entries.get("capacityPremium")),
+                parseInt(entries.get("capacityBasic")),
+                name != null ? name.toString() : null);
+    }
+
+    private static int parseInt(Object value) {
+        if (value == null) return 0;
+        try {
+            return Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private record Cached(AttractionMeta meta, long loadedAt) {}
+}
@@ -1,25 +1,39 @@
 package com.skala.queue_server.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.skala.queue_server.client.AttractionClient;
-import com.skala.queue_server.dto.AttractionCycleInfo;
-import com.skala.queue_server.dto.WaitingInfoResponse;
-import com.skala.queue_server.entity.AttractionQueue;
+import com.skala.queue_server.client.AttractionCycleCache;
+import com.skala.queue_server.dto.AttractionMeta;
+import com.skala.queue_server.dto.ExpiredQueueRow;
 import com.skala.queue_server.entity.QueueStatus;
 import com.skala.queue_server.entity.TicketType;
+import com.skala.queue_server.event.QueueAlmostReadyEvent;
+import com.skala.queue_server.event.QueueAvailableEvent;
+import com.skala.queue_server.event.QueueCycleDispatchEvent;
+import com.skala.queue_server.event.QueueEventEncoder;
+import com.skala.queue_server.event.QueueEventPublisher;
+import com.skala.queue_server.event.QueueStatusEvent;
+import com.skala.queue_server.redis.QueueRedisScripts;
 import com.skala.queue_server.repository.AttractionQueueRepository;
+import com.skala.queue_server.util.HashedTimingWheel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -29,237 +43,460 @@ public class AttractionSchedulerService {
     private static final String TOPIC_AVAILABLE     = "queue-available-event";
     private static final String TOPIC_ALMOST_READY  = "queue-almost-ready-event";
     private static final String TOPIC_STATUS        = "queue-status-event";
-    private static final String META_KEY            = "attraction:meta:%d";
+    private static final String TOPIC_CYCLE_DISPATCH = "queue-cycle-dispatch-event";
     private static final String LAST_DISPATCH_KEY   = "attraction:last_dispatch:%d";
+    private static final String DISPATCH_LEASE_KEY  = "attraction:dispatch_lease:%d";
+    private static final String DISPATCH_FENCE_KEY  = "attraction:dispatch_fence:%d";
+    private static final String NO_SHOW_LOCK_KEY    = "queue:noshow:lock";
     private static final String ALMOST_READY_NOTIFIED_KEY = "queue:almost_ready_notified:%d";
-    private static final String USER_STATUS_BROADCAST_LOCK_KEY = "queue:user_status:broadcast_lock";
     private static final String ACTIVE_ATTRACTIONS_KEY = "attraction:active_ids";
+    private static final LocalDateTime NO_SHOW_CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
 
     @Value("${queue.noshow.timeout-minutes:5}")
     private int noShowTimeoutMinutes;
 
+    @Value("${queue.noshow.chunk-size:500}")
+    private int noShowChunkSize;
+
     @Value("${queue.almost-ready.cycles-before:2}")
     private int almostReadyCyclesBefore;
 
-    @Value("${queue.user-status.broadcast-interval-ms:10000}")
-    private long userStatusBroadcastIntervalMs;
+    @Value("${queue.events.cycle-batch.enabled:false}")
+    private boolean cycleBatchEnabled;
+
+    @Value("${queue.dispatch.lease-ms:30000}")
+    private long dispatchLeaseMs;
+
+    @Value("${queue.dispatch.lease-retry-ms:1000}")
+    private long dispatchLeaseRetryMs;
 
     private final AttractionQueueRepository repository;
     private final RedisTemplate<String, String> redisTemplate;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final QueueEventPublisher queueEventPublisher;
     private final QueueService queueService;
     private final AttractionClient attractionClient;
-    private final ObjectMapper objectMapper;
+    private final QueueRedisScripts queueRedisScripts;
+    private final QueueEventEncoder queueEventEncoder;
+    private final HashedTimingWheel dispatchTimerWheel;
+    private final TransactionTemplate transactionTemplate;
+    private final DispatchOwnership dispatchOwnership;
+    private final AttractionMetaCache attractionMetaCache;
+    private final AttractionCycleCache attractionCycleCache;
+    private final UserQueueIndex userQueueIndex;
+    private final QueuePersistence queuePersistence;
+
+    private final Map<Long, HashedTimingWheel.Timeout> dispatchTimers = new ConcurrentHashMap<>();
+
+    // ── WAITING → AVAILABLE 디스패치 (놀이기구별 회차 경계 타이머) ─────────
+    // 놀이기구마다 다음 회차 경계 시각에 타이머 하나를 걸고, 디스패치 후 다음 경계로 다시 건다.
+    // 타이머는 이 레플리카가 소유한 놀이기구에만 건다 (DispatchOwnership).
+    // 주기적 정합성 점검은 타이머가 없는 소유 놀이기구(다른 경로로 메타가 등록된 경우 등)만 새로 건다.
+    @Scheduled(fixedDelayString = "${queue.dispatch.reconcile-interval-ms:60000}")
+    public void reconcileDispatchTimers() {
+        Set<String> attractionIds = redisTemplate.opsForSet().members(ACTIVE_ATTRACTIONS_KEY);
+        if (attractionIds == null || attractionIds.isEmpty()) return;
 
-    // ── 개인 대기 순번/시간 브로드캐스트 ─────────────────────────────────────
-    @Scheduled(fixedDelayString = "${queue.user-status.broadcast-interval-ms:10000}")
-    public void broadcastActiveUserStatuses() {
-        Boolean locked = redisTemplate.opsForValue().setIfAbsent(
-                USER_STATUS_BROADCAST_LOCK_KEY,
-                String.valueOf(System.currentTimeMillis()),
-                Duration.ofMillis(Math.max(userStatusBroadcastIntervalMs - 500, 1000))
-        );
-        if (!Boolean.TRUE.equals(locked)) return;
+        for (String idStr : attractionIds) {
+            Long attractionId = Long.parseLong(idStr);
+            boolean owned = dispatchOwnership.owns(attractionId);
+            if (owned && !dispatchTimers.containsKey(attractionId)) {
+                armDispatchTimer(attractionId);
+            } else if (!owned) {
+                disarmDispatchTimer(attractionId);
+            }
+        }
+    }
 
-        List<Long> userIds = repository.findDistinctUserIdsByStatusIn(
-                List.of(QueueStatus.WAITING, QueueStatus.AVAILABLE));
-        for (Long userId : userIds) {
-            queueService.publishUserStatusEvent(userId);
+    // 레플리카 합류/이탈 시 즉시 재분배: 새로 맡은 놀이기구는 바로 걸고, 넘겨준 놀이기구는 해제
+    @EventListener
+    public void onReplicaMembershipChanged(DispatchOwnership.MembershipChanged event) {
+        reconcileDispatchTimers();
+    }
+
+    private void disarmDispatchTimer(Long attractionId) {
+        HashedTimingWheel.Timeout timeout = dispatchTimers.remove(attractionId);
+        if (timeout != null) {
+            timeout.cancel();
+            log.info("released dispatch ownership attractionId={}", attractionId);
         }
-        if (!userIds.isEmpty()) {
-            log.debug("broadcasted active queue statuses users={}", userIds.size());
+    }
+
+    private void armDispatchTimer(Long attractionId) {
+        if (!dispatchOwnership.owns(attractionId)) return;
+        try {
+            AttractionMeta meta = attractionMetaCache.get(attractionId);
+            if (meta == null) return;
+
+            long cyclingTimeMs = meta.cyclingTimeSeconds() * 1000L;
+            String lastDispatchStr = redisTemplate.opsForValue().get(String.format(LAST_DISPATCH_KEY, attractionId));
+            long lastDispatch = lastDispatchStr == null ? 0L : Long.parseLong(lastDispatchStr);
+            scheduleDispatch(attractionId, lastDispatch + cyclingTimeMs);
+        } catch (Exception e) {
+            log.error("dispatch timer arm error attractionId={}", attractionId, e);
         }
     }
 
-    // ── WAITING → AVAILABLE 디스패치 (10초마다) ──────────────────────────────
-    @Scheduled(fixedDelay = 10000)
-    @Transactional
-    public void dispatchReadyUsers() {
-        Set<String> attractionIds = redisTemplate.opsForSet().members(ACTIVE_ATTRACTIONS_KEY);
-        if (attractionIds == null || attractionIds.isEmpty()) return;
+    private void scheduleDispatch(Long attractionId, long dueAt) {
+        long delayMs = Math.max(dueAt - System.currentTimeMillis(), 0L);
+        HashedTimingWheel.Timeout timeout = dispatchTimerWheel.schedule(() -> fireDispatch(attractionId), delayMs);
+        HashedTimingWheel.Timeout previous = dispatchTimers.put(attractionId, timeout);
+        if (previous != null) previous.cancel();
+    }
 
-        for (String idStr : attractionIds) {
-            try {
-                dispatchAttraction(Long.parseLong(idStr));
-            } catch (Exception e) {
-                log.error("dispatch error attractionId={}", idStr, e);
-            }
+    // 놀이기구별로 가상 스레드에서 실행되며, 자기 트랜잭션과 자기 lease 만 사용한다.
+    // lease 획득 시 받은 펜싱 토큰은 ZPOPMIN 스크립트에서 검증되어, lease 가 만료된 뒤 늦게 깨어난
+    // 이전 소유자는 대기열을 건드리지 못한다.
+    private void fireDispatch(Long attractionId) {
+        if (!dispatchOwnership.owns(attractionId)) {
+            dispatchTimers.remove(attractionId);
+            return;
+        }
+
+        String leaseKey = String.format(DISPATCH_LEASE_KEY, attractionId);
+        long fenceToken = queueRedisScripts.acquireLease(
+                leaseKey, String.format(DISPATCH_FENCE_KEY, attractionId), dispatchLeaseMs);
+        if (fenceToken <= 0) {
+            // 같은 놀이기구의 이전 디스패치(또는 직전 소유자)가 아직 진행 중 → 잠시 후 재시도
+            scheduleDispatch(attractionId, System.currentTimeMillis() + dispatchLeaseRetryMs);
+            return;
+        }
+
+        long nextDueAt = -1L;
+        try {
+            Long result = transactionTemplate.execute(status -> dispatchAttraction(attractionId, fenceToken));
+            nextDueAt = result != null ? result : -1L;
+        } catch (Exception e) {
+            log.error("dispatch error attractionId={}", attractionId, e);
+        } finally {
+            queueRedisScripts.releaseLease(leaseKey, fenceToken);
+        }
+
+        if (nextDueAt > 0) {
+            scheduleDispatch(attractionId, nextDueAt);
+        } else {
+            // 메타 조회 실패 등: 다음 정합성 점검에서 다시 건다.
+            dispatchTimers.remove(attractionId);
         }
     }
 
-    private void dispatchAttraction(Long attractionId) {
-        String metaKey = String.format(META_KEY, attractionId);
-        Object cycleSecsObj = redisTemplate.opsForHash().get(metaKey, "cyclingTimeSeconds");
-        if (cycleSecsObj == null) return;
+    // 디스패치 후 다음 회차 경계 시각(epoch millis)을 반환한다. 메타가 없으면 -1.
+    private long dispatchAttraction(Long attractionId, long fenceToken) {
+        AttractionMeta meta = attractionMetaCache.get(attractionId);
+        if (meta == null) return -1L;
 
-        long cyclingTimeMs = Long.parseLong(cycleSecsObj.toString()) * 1000L;
+        long cyclingTimeMs = meta.cyclingTimeSeconds() * 1000L;
         String lastDispatchKey = String.format(LAST_DISPATCH_KEY, attractionId);
         String lastDispatchStr = redisTemplate.opsForValue().get(lastDispatchKey);
         long lastDispatch = lastDispatchStr == null ? 0L : Long.parseLong(lastDispatchStr);
 
-        if (System.currentTimeMillis() - lastDispatch < cyclingTimeMs) return;
+        long now = System.currentTimeMillis();
+        if (now - lastDispatch < cyclingTimeMs) return lastDispatch + cyclingTimeMs;
+
+        // 이번 회차 경계: 직전 경계 + 회차 간격. 여러 회차를 건너뛴 뒤(장애/소유권 이동)에는 now 이하의 마지막 경계에 맞춘다.
+        // 처음 디스패치하거나 간격이 0 이면 now 를 경계로 삼는다.
+        long boundary = lastDispatch <= 0 || cyclingTimeMs <= 0
+                ? now
+                : lastDispatch + ((now - lastDispatch) / cyclingTimeMs) * cyclingTimeMs;
 
-        // attraction-server에서 현재 실제 회차 ID 조회
-        AttractionCycleInfo cycleInfo = attractionClient.getCurrentCycle(attractionId);
-        Long cycleId = (cycleInfo != null) ? cycleInfo.getAttractionCycleId() : null;
+        // 현재 회차 ID 는 로컬 회차 시계 + 당일 회차표 캐시에서 구한다.
+        Long cycleId = attractionCycleCache.currentCycleId(attractionId, meta.cyclingTimeSeconds());
+        String attractionName = getAttractionName(meta);
+
+        List<QueueCycleDispatchEvent.Boarded> boarded = new ArrayList<>();
+        List<QueueCycleDispatchEvent.Lane> lanes = new ArrayList<>();
 
         // PREMIUM → BASIC 순으로 디스패치
         for (TicketType ticketType : TicketType.values()) {
-            Object capacityObj = redisTemplate.opsForHash().get(metaKey,
-                    ticketType == TicketType.PREMIUM ? "capacityPremium" : "capacityBasic");
-            if (capacityObj == null) continue;
-
-            int capacity = Integer.parseInt(capacityObj.toString());
+            int capacity = meta.capacity(ticketType);
+            if (capacity <= 0) continue;
             String queueKey = queueService.getQueueKey(attractionId, ticketType);
 
-            sendAlmostReadyEvents(attractionId, ticketType, capacity, queueKey);
-
-            Set<String> topUsers = redisTemplate.opsForZSet().range(queueKey, 0, capacity - 1);
-            if (topUsers == null || topUsers.isEmpty()) continue;
-
-            for (String userIdStr : topUsers) {
-                Long userId = Long.parseLong(userIdStr);
-                try {
-                    makeAvailable(userId, attractionId, ticketType, cycleId);
-                    redisTemplate.opsForZSet().remove(queueKey, userIdStr);
-                } catch (Exception e) {
-                    log.error("makeAvailable error userId={} attractionId={}", userId, attractionId, e);
-                }
+            // 탑승 인원 ZPOPMIN + 곧 차례 안내 대상 조회를 원자적으로 한 번에 처리
+            int almostReadyEnd = almostReadyCyclesBefore > 0 ? (capacity * almostReadyCyclesBefore) - 1 : -1;
+            QueueRedisScripts.DispatchBatch batch = queueRedisScripts.popForDispatch(
+                    queueKey, String.format(DISPATCH_FENCE_KEY, attractionId), fenceToken, capacity, almostReadyEnd);
+            if (batch.fenced()) {
+                throw new IllegalStateException("dispatch fencing token superseded attractionId=" + attractionId);
+            }
+            restoreOnRollback(queueKey, batch.boarded());
+
+            sendAlmostReadyEvents(attractionId, ticketType, attractionName, batch.almostReady());
+            Map<Long, UserQueueIndex.Entry> available =
+                    makeAvailable(attractionId, ticketType, cycleId, attractionName, queueKey, batch);
+            if (cycleBatchEnabled) {
+                available.forEach((userId, entry) -> boarded.add(new QueueCycleDispatchEvent.Boarded(
+                        entry.attractionQueueId(), userId, ticketType.name())));
+                Long headUserId = batch.almostReady().isEmpty() ? null : Long.parseLong(batch.almostReady().get(0));
+                lanes.add(new QueueCycleDispatchEvent.Lane(ticketType.name(), available.size(), headUserId));
             }
         }
 
-        redisTemplate.opsForValue().set(lastDispatchKey, String.valueOf(System.currentTimeMillis()));
+        // now 가 아니라 회차 경계 시각을 기록해 타이머 지연/디스패치 소요 시간이 다음 회차에 누적되지 않게 한다.
+        redisTemplate.opsForValue().set(lastDispatchKey, String.valueOf(boundary));
         log.info("dispatched attractionId={} cycleId={}", attractionId, cycleId);
 
-        sendStatusEvent(attractionId);
+        QueueStatusEvent waitingInfo = sendStatusEvent(attractionId);
+        if (cycleBatchEnabled) {
+            sendCycleDispatchEvent(new QueueCycleDispatchEvent(
+                    attractionId, attractionName, cycleId, now, boarded, lanes, waitingInfo));
+        }
+        return boundary + cyclingTimeMs;
     }
 
-    private void sendStatusEvent(Long attractionId) {
+    // 발행한 대기 현황을 돌려준다 (조회/발행 실패 시 null).
+    private QueueStatusEvent sendStatusEvent(Long attractionId) {
         try {
-            WaitingInfoResponse info = queueService.getWaitingInfo(attractionId);
-            Map<String, Object> event = new LinkedHashMap<>();
-            event.put("attractionId",          info.getAttractionId());
-            event.put("waitingMinutesPremium", info.getWaitingMinutesPremium());
-            event.put("waitingMinutesBasic",   info.getWaitingMinutesBasic());
-            event.put("queueCountPremium",     info.getQueueCountPremium());
-            event.put("queueCountBasic",       info.getQueueCountBasic());
-            kafkaTemplate.send(TOPIC_STATUS, attractionId.toString(),
-                    objectMapper.writeValueAsString(event));
+            QueueStatusEvent event = QueueStatusEvent.from(queueService.getWaitingInfo(attractionId));
+            queueEventPublisher.publish(TOPIC_STATUS, attractionId.toString(),
+                    queueEventEncoder.encode(TOPIC_STATUS, event));
+            return event;
         } catch (Exception e) {
             log.error("queue-status-event send error attractionId={}", attractionId, e);
+            return null;
         }
     }
 
-    private void sendAlmostReadyEvents(Long attractionId, TicketType ticketType, int capacity, String queueKey) {
-        if (capacity <= 0 || almostReadyCyclesBefore <= 0) return;
+    private void sendCycleDispatchEvent(QueueCycleDispatchEvent event) {
+        try {
+            queueEventPublisher.publish(TOPIC_CYCLE_DISPATCH, event.attractionId().toString(),
+                    queueEventEncoder.encode(TOPIC_CYCLE_DISPATCH, event));
+            log.info("sent cycle dispatch event attractionId={} cycleId={} boarded={}",
+                    event.attractionId(), event.cycleId(), event.boarded().size());
+        } catch (Exception e) {
+            log.error("queue-cycle-dispatch-event send error attractionId={}", event.attractionId(), e);
+        }
+    }
+
+    private void sendAlmostReadyEvents(Long attractionId, TicketType ticketType, String attractionName,
+                                       List<String> almostReadyUsers) {
+        if (almostReadyUsers.isEmpty()) return;
+
+        List<Long> userIds = almostReadyUsers.stream().map(Long::parseLong).toList();
+        Map<Long, UserQueueIndex.Entry> waiting = activeEntries(
+                userIds, attractionId, ticketType, QueueStatus.WAITING);
+        if (waiting.isEmpty()) return;
+
+        // 안내 여부 플래그를 SETNX 로 한 번에 선점 → 처음 선점한 대상에게만 발송
+        List<Map.Entry<Long, UserQueueIndex.Entry>> targets = new ArrayList<>(waiting.entrySet());
+        List<Object> acquired = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Map.Entry<Long, UserQueueIndex.Entry> target : targets) {
+                    ops.opsForValue().setIfAbsent(
+                            String.format(ALMOST_READY_NOTIFIED_KEY, target.getValue().attractionQueueId()), "true");
+                }
+                return null;
+            }
+        });
+
+        for (int i = 0; i < targets.size(); i++) {
+            if (Boolean.TRUE.equals(acquired.get(i))) {
+                sendAlmostReadyEvent(targets.get(i).getKey(), targets.get(i).getValue(), attractionName);
+            }
+        }
+    }
 
-        int startRank = capacity;
-        int endRank = (capacity * almostReadyCyclesBefore) - 1;
-        if (endRank < startRank) return;
+    // 탑승 대상을 사용자 인덱스에서 한 번의 파이프라인으로 확인하고, 한 번의 조건부 UPDATE 로 AVAILABLE 전환 후
+    // 이벤트를 일괄 발행 (write-behind 모드에서도 반영 전인 대기자까지 바로 전환된다).
+    // 회차 묶음 이벤트를 쓰면 사용자별 이벤트는 보내지 않는다. 실제로 전환된 항목만 돌려준다.
+    // 꺼냈지만 전환하지 못한 대기자(행 ID 미확정, 조건부 UPDATE 불일치)는 원래 점수로 ZSET 에 되돌려 다음 회차에 태운다.
+    private Map<Long, UserQueueIndex.Entry> makeAvailable(Long attractionId, TicketType ticketType, Long cycleId,
+                                                          String attractionName, String queueKey,
+                                                          QueueRedisScripts.DispatchBatch batch) {
+        if (batch.boarded().isEmpty()) return Map.of();
+
+        List<Long> userIds = batch.boardedUserIds();
+        Map<Long, UserQueueIndex.Entry> indexed = userQueueIndex.get(userIds, attractionId);
+        Map<Long, UserQueueIndex.Entry> waiting = new LinkedHashMap<>(indexed);
+        waiting.values().removeIf(e -> !matches(e, ticketType, QueueStatus.WAITING) || e.attractionQueueId() == null);
+
+        if (!waiting.isEmpty()) {
+            List<Long> ids = waiting.values().stream().map(UserQueueIndex.Entry::attractionQueueId).toList();
+            Set<Long> transitioned = new HashSet<>(
+                    queuePersistence.transitionWithCycle(ids, QueueStatus.WAITING, QueueStatus.AVAILABLE, cycleId));
+            waiting.values().removeIf(e -> !transitioned.contains(e.attractionQueueId()));
+        }
+        requeueUnmatched(queueKey, batch.boarded(), indexed, waiting.keySet(), ticketType);
+        if (waiting.isEmpty()) return Map.of();
+
+        // 사용자 인덱스도 AVAILABLE 로 맞춘다. ZSET member 는 Lua 에서 userId 로 해석할 수 없어
+        // ZPOPMIN 과 같은 스크립트에서 처리하지 못하므로 디스패치 lease 안에서 별도 단계로 갱신하고,
+        // 롤백되면 WAITING 으로 되돌린다.
+        List<Long> availableUserIds = List.copyOf(waiting.keySet());
+        userQueueIndex.setStatus(availableUserIds, attractionId, QueueStatus.AVAILABLE);
+        revertIndexOnRollback(availableUserIds, attractionId);
+
+        if (!cycleBatchEnabled) {
+            waiting.forEach((userId, entry) -> sendAvailableEvent(userId, entry, cycleId, attractionName));
+            for (Long userId : availableUserIds) {
+                queueService.publishUserStatusEvent(userId);
+            }
+        }
+        return waiting;
+    }
 
-        Set<String> almostReadyUsers = redisTemplate.opsForZSet().range(queueKey, startRank, endRank);
-        if (almostReadyUsers == null || almostReadyUsers.isEmpty()) return;
+    // 인덱스에서 해당 등급/상태이고 행 ID 가 확정된 항목만 고른다.
+    private Map<Long, UserQueueIndex.Entry> activeEntries(List<Long> userIds, Long attractionId,
+                                                          TicketType ticketType, QueueStatus status) {
+        Map<Long, UserQueueIndex.Entry> entries = new LinkedHashMap<>(userQueueIndex.get(userIds, attractionId));
+        entries.values().removeIf(e -> !matches(e, ticketType, status) || e.attractionQueueId() == null);
+        return entries;
+    }
 
-        for (String userIdStr : almostReadyUsers) {
-            Long userId = Long.parseLong(userIdStr);
-            repository.findFirstByUserIdAndAttractionIdAndTicketTypeAndStatusOrderByCreatedAtDesc(
-                    userId, attractionId, ticketType, QueueStatus.WAITING)
-                    .ifPresent(queue -> {
-                        String notifiedKey = String.format(ALMOST_READY_NOTIFIED_KEY, queue.getAttractionQueueId());
-                        Boolean alreadyNotified = redisTemplate.hasKey(notifiedKey);
-                        if (Boolean.TRUE.equals(alreadyNotified)) return;
+    private static boolean matches(UserQueueIndex.Entry entry, TicketType ticketType, QueueStatus status) {
+        return entry.ticketType() == ticketType && entry.status() == status;
+    }
 
-                        redisTemplate.opsForValue().set(notifiedKey, "true");
-                        sendAlmostReadyEvent(queue);
-                    });
+    // 인덱스상 아직 이 등급에서 WAITING 인데 전환되지 않은 대기자만 되돌린다.
+    // 인덱스에 없는 사용자(꺼낸 직후 취소)나 다른 상태인 사용자는 되돌리지 않는다.
+    private void requeueUnmatched(String queueKey, List<ZSetOperations.TypedTuple<String>> popped,
+                                  Map<Long, UserQueueIndex.Entry> indexed, Set<Long> transitioned,
+                                  TicketType ticketType) {
+        List<ZSetOperations.TypedTuple<String>> requeue = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> member : popped) {
+            Long userId = Long.parseLong(member.getValue());
+            if (transitioned.contains(userId)) continue;
+            UserQueueIndex.Entry entry = indexed.get(userId);
+            if (entry != null && matches(entry, ticketType, QueueStatus.WAITING)) requeue.add(member);
         }
+        if (requeue.isEmpty()) return;
+        queueRedisScripts.restore(queueKey, requeue);
+        log.warn("requeued {} popped users not transitioned to AVAILABLE queueKey={}", requeue.size(), queueKey);
     }
 
-    private void makeAvailable(Long userId, Long attractionId, TicketType ticketType, Long cycleId) {
-        repository.findByUserIdAndAttractionIdAndStatusIn(
-                userId, attractionId, List.of(QueueStatus.WAITING))
-                .ifPresent(queue -> {
-                    queue.setStatus(QueueStatus.AVAILABLE);
-                    queue.setAttractionCycleId(cycleId);
-                    repository.save(queue);
-                    sendAvailableEvent(queue);
-                });
+    // 디스패치 트랜잭션이 롤백되면 ZPOPMIN 으로 꺼낸 대기자를 원래 순번으로 되돌린다.
+    private void restoreOnRollback(String queueKey, List<ZSetOperations.TypedTuple<String>> boarded) {
+        if (boarded.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    queueRedisScripts.restore(queueKey, boarded);
+                    log.warn("restored {} popped users after dispatch rollback queueKey={}", boarded.size(), queueKey);
+                }
+            }
+        });
     }
 
-    private void sendAvailableEvent(AttractionQueue queue) {
+    private void revertIndexOnRollback(List<Long> userIds, Long attractionId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    userQueueIndex.setStatus(userIds, attractionId, QueueStatus.WAITING);
+                }
+            }
+        });
+    }
+
+    private void sendAvailableEvent(Long userId, UserQueueIndex.Entry entry, Long cycleId, String attractionName) {
         try {
-            Map<String, Object> event = new LinkedHashMap<>();
-            event.put("attractionQueueId", queue.getAttractionQueueId());
-            event.put("userId",            queue.getUserId());
-            event.put("attractionId",      queue.getAttractionId());
-            event.put("attractionName",    getAttractionName(queue.getAttractionId()));
-            event.put("ticketType",        queue.getTicketType().name());
-            event.put("cycleId",           queue.getAttractionCycleId());
-            event.put("status",            "AVAILABLE");
-            kafkaTemplate.send(TOPIC_AVAILABLE, queue.getAttractionId().toString(),
-                    objectMapper.writeValueAsString(event));
-            queueService.publishUserStatusEvent(queue.getUserId());
+            QueueAvailableEvent event = new QueueAvailableEvent(entry.attractionQueueId(), userId,
+                    entry.attractionId(), attractionName, entry.ticketType().name(), cycleId, "AVAILABLE");
+            queueEventPublisher.publish(TOPIC_AVAILABLE, entry.attractionId().toString(),
+                    queueEventEncoder.encode(TOPIC_AVAILABLE, event));
             log.info("sent available event userId={} attractionId={} cycleId={}",
-                    queue.getUserId(), queue.getAttractionId(), queue.getAttractionCycleId());
+                    userId, entry.attractionId(), cycleId);
         } catch (Exception e) {
             log.error("kafka send error", e);
         }
     }
 
-    private void sendAlmostReadyEvent(AttractionQueue queue) {
+    private void sendAlmostReadyEvent(Long userId, UserQueueIndex.Entry entry, String attractionName) {
         try {
-            Map<String, Object> event = new LinkedHashMap<>();
-            event.put("attractionQueueId", queue.getAttractionQueueId());
-            event.put("userId",            queue.getUserId());
-            event.put("attractionId",      queue.getAttractionId());
-            event.put("attractionName",    getAttractionName(queue.getAttractionId()));
-            event.put("ticketType",        queue.getTicketType().name());
-            event.put("status",            "ALMOST_READY");
-            event.put("cyclesBefore",      almostReadyCyclesBefore);
-            kafkaTemplate.send(TOPIC_ALMOST_READY, queue.getAttractionId().toString(),
-                    objectMapper.writeValueAsString(event));
+            QueueAlmostReadyEvent event = new QueueAlmostReadyEvent(entry.attractionQueueId(), userId,
+                    entry.attractionId(), attractionName, entry.ticketType().name(), "ALMOST_READY",
+                    almostReadyCyclesBefore);
+            queueEventPublisher.publish(TOPIC_ALMOST_READY, entry.attractionId().toString(),
+                    queueEventEncoder.encode(TOPIC_ALMOST_READY, event));
             log.info("sent almost-ready event userId={} attractionId={} cyclesBefore={}",
-                    queue.getUserId(), queue.getAttractionId(), almostReadyCyclesBefore);
+                    userId, entry.attractionId(), almostReadyCyclesBefore);
         } catch (Exception e) {
             log.error("kafka almost-ready send error", e);
         }
     }
 
-    private String getAttractionName(Long attractionId) {
-        String metaKey = String.format(META_KEY, attractionId);
-        Object cached = redisTemplate.opsForHash().get(metaKey, "attractionName");
-        if (cached != null) return cached.toString();
+    private String getAttractionName(AttractionMeta meta) {
+        if (meta.attractionName() != null) return meta.attractionName();
         try {
-            var attraction = attractionClient.getAttraction(attractionId);
-            return attraction != null ? attraction.getAttractionName() : "attraction-" + attractionId;
+            var attraction = attractionClient.getAttraction(meta.attractionId());
+            return attraction != null ? attraction.getAttractionName() : meta.displayName();
         } catch (Exception e) {
-            return "attraction-" + attractionId;
+            return meta.displayName();
         }
     }
 
     // ── AVAILABLE → NO_SHOW 처리 (1분마다) ───────────────────────────────────
+    // 만료 행을 (updatedAt, attractionQueueId) keyset 으로 chunk-size 개씩 읽어 chunk 마다 짧은 트랜잭션에서
+    // 조건부 일괄 UPDATE 하고, 커밋 후 해당 사용자 상태 이벤트를 발행한다. 비용은 만료 행 수에만 비례한다.
     @Scheduled(fixedDelay = 60000)
-    @Transactional
     public void processNoShow() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(
+                NO_SHOW_LOCK_KEY, dispatchOwnership.getReplicaId(), Duration.ofSeconds(50));
+        if (!Boolean.TRUE.equals(locked)) return;
+
         LocalDateTime threshold = LocalDateTime.now().minusMinutes(noShowTimeoutMinutes);
-        List<AttractionQueue> expired = repository.findByStatusAndUpdatedAtBefore(
-                QueueStatus.AVAILABLE, threshold);
+        LocalDateTime afterUpdatedAt = NO_SHOW_CURSOR_START;
+        Long afterId = 0L;
+        int swept = 0;
+
+        while (true) {
+            List<ExpiredQueueRow> chunk = repository.findExpiredChunk(
+                    QueueStatus.AVAILABLE, threshold, afterUpdatedAt, afterId, PageRequest.of(0, noShowChunkSize));
+            if (chunk.isEmpty()) break;
+            ExpiredQueueRow last = chunk.get(chunk.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getAttractionQueueId();
+
+            List<ExpiredQueueRow> noShows = new ArrayList<>(chunk.size());
+            for (ExpiredQueueRow row : chunk) {
+                // write-behind 모드에서 DB 가 뒤처진 경우(이미 미루기/완료됨)는 인덱스 기준으로 건너뛴다.
+                UserQueueIndex.Entry entry = userQueueIndex.get(row.getUserId(), row.getAttractionId());
+                if (entry != null && (entry.status() != QueueStatus.AVAILABLE
+                        || !row.getAttractionQueueId().equals(entry.attractionQueueId()))) continue;
+                noShows.add(row);
+            }
 
-        for (AttractionQueue queue : expired) {
-            queue.setStatus(QueueStatus.NO_SHOW);
-            repository.save(queue);
-            log.info("NO_SHOW userId={} attractionId={}", queue.getUserId(), queue.getAttractionId());
+            if (!noShows.isEmpty()) {
+                List<Long> ids = noShows.stream().map(ExpiredQueueRow::getAttractionQueueId).toList();
+                List<Long> marked = transactionTemplate.execute(status -> queuePersistence.markNoShow(ids, threshold));
+                Set<Long> markedIds = marked == null ? Set.of() : new HashSet<>(marked);
+
+                // 조건부 UPDATE 가 건너뛴 행, 그 사이 인덱스가 바뀐(미루기/완료) 행은 지우지도 알리지도 않는다.
+                List<ExpiredQueueRow> applied = new ArrayList<>(markedIds.size());
+                for (ExpiredQueueRow row : noShows) {
+                    if (!markedIds.contains(row.getAttractionQueueId())) continue;
+                    if (!userQueueIndex.removeIfMatches(row.getUserId(), row.getAttractionId(),
+                            QueueStatus.AVAILABLE, row.getAttractionQueueId())) continue;
+                    applied.add(row);
+                    log.info("NO_SHOW userId={} attractionId={}", row.getUserId(), row.getAttractionId());
+                }
+                applied.stream().map(ExpiredQueueRow::getUserId).distinct()
+                        .forEach(queueService::publishUserStatusEvent);
+                swept += applied.size();
+            }
+            if (chunk.size() < noShowChunkSize) break;
+        }
+
+        if (swept > 0) {
+            log.info("NO_SHOW sweep done count={} threshold={}", swept, threshold);
         }
     }
 
     // ── 놀이기구 메타 등록 (외부에서 호출) ───────────────────────────────────
     public void registerAttractionMeta(Long attractionId, int cyclingTimeSeconds,
                                         int capacityPremium, int capacityBasic) {
-        String metaKey = String.format(META_KEY, attractionId);
-        redisTemplate.opsForHash().put(metaKey, "cyclingTimeSeconds", String.valueOf(cyclingTimeSeconds));
-        redisTemplate.opsForHash().put(metaKey, "capacityPremium",    String.valueOf(capacityPremium));
-        redisTemplate.opsForHash().put(metaKey, "capacityBasic",      String.valueOf(capacityBasic));
-        redisTemplate.opsForSet().add(ACTIVE_ATTRACTIONS_KEY, attractionId.toString());
+        attractionMetaCache.register(attractionId, cyclingTimeSeconds, capacityPremium, capacityBasic);
+        armDispatchTimer(attractionId);
         log.info("registered attraction meta attractionId={}", attractionId);
     }
+
+    // ── 놀이기구 메타 push 반영 (attraction-meta-event, 레플리카마다 각자 반영) ──
+    public void applyAttractionMeta(AttractionMeta meta) {
+        attractionMetaCache.apply(meta);
+        armDispatchTimer(meta.attractionId());
+    }
 }
@@ -0,0 +1,110 @@
+package com.skala.queue_server.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 레플리카 간 놀이기구 디스패치 소유권 분배.
+ *
+ * 각 레플리카는 queue:replicas ZSET 에 주기적으로 heartbeat(score = 현재 시각)를 남기고,
+ * TTL 안에 heartbeat 가 있는 레플리카를 살아있는 것으로 본다.
+ * 놀이기구 소유자는 살아있는 레플리카 중 rendezvous hash 가중치가 가장 큰 레플리카이며,
+ * 레플리카가 합류/이탈하면 해당 레플리카 몫의 놀이기구만 다른 레플리카로 옮겨진다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DispatchOwnership {
+
+    private static final String REPLICAS_KEY = "queue:replicas";
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String replicaId = resolveReplicaId();
+    private volatile List<String> liveReplicas = List.of(replicaId);
+
+    @Value("${queue.replica.heartbeat-ttl-ms:6000}")
+    private long heartbeatTtlMs;
+
+    // ── heartbeat 갱신 + 살아있는 레플리카 목록 갱신 ─────────────────────────
+    @Scheduled(fixedDelayString = "${queue.replica.heartbeat-interval-ms:2000}")
+    public void heartbeat() {
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(REPLICAS_KEY, replicaId, now);
+            redisTemplate.opsForZSet().removeRangeByScore(REPLICAS_KEY, 0, now - heartbeatTtlMs);
+            Set<String> members = redisTemplate.opsForZSet().range(REPLICAS_KEY, 0, -1);
+
+            List<String> live = members == null || members.isEmpty()
+                    ? List.of(replicaId)
+                    : members.stream().sorted().toList();
+            if (!live.equals(liveReplicas)) {
+                log.info("replica membership changed replicaId={} live={}", replicaId, live);
+                liveReplicas = live;
+                eventPublisher.publishEvent(new MembershipChanged(live));
+            }
+        } catch (Exception e) {
+            log.warn("replica heartbeat failed replicaId={}: {}", replicaId, e.getMessage());
+        }
+    }
+
+    public boolean owns(Long attractionId) {
+        return replicaId.equals(ownerOf(attractionId));
+    }
+
+    public String ownerOf(Long attractionId) {
+        String owner = replicaId;
+        long best = Long.MIN_VALUE;
+        for (String replica : liveReplicas) {
+            long weight = weight(replica, attractionId);
+            if (weight > best) {
+                best = weight;
+                owner = replica;
+            }
+        }
+        return owner;
+    }
+
+    public String getReplicaId() {
+        return replicaId;
+    }
+
+    // 정상 종료 시 즉시 이탈을 알려 다른 레플리카가 TTL 을 기다리지 않고 소유권을 가져가게 한다.
+    @PreDestroy
+    public void leave() {
+        try {
+            redisTemplate.opsForZSet().remove(REPLICAS_KEY, replicaId);
+        } catch (Exception e) {
+            log.warn("replica leave failed replicaId={}: {}", replicaId, e.getMessage());
+        }
+    }
+
+    private static long weight(String replica, long attractionId) {
+        long h = replica.hashCode() * 0x9E3779B97F4A7C15L ^ attractionId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String resolveReplicaId() {
+        String host = System.getenv("HOSTNAME");
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return (host == null || host.isBlank() ? "queue-server" : host) + "-" + suffix;
+    }
+
+    public record MembershipChanged(List<String> liveReplicas) {}
+}
@@ -22,13 +22,12 @@ public class MockQueueDataGenerator {
 
     private static final Logger logger = LoggerFactory.getLogger(MockQueueDataGenerator.class);
     private static final String QUEUE_KEY_PREFIX = "queue:attraction:";
-    private static final String META_KEY_PREFIX = "attraction:meta:";
-    private static final String ACTIVE_ATTRACTIONS_KEY = "attraction:active_ids";
     private static final int FAST_CYCLE_RIDE_ID = 7;
     private static final int FAST_CYCLE_SECONDS = 30;
     private static final Random random = new Random();
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final AttractionMetaCache attractionMetaCache;
     private final AtomicLong userIdCounter = new AtomicLong(100000);
 
     @Value("${queue.mock.initial-delay-seconds:5}")
@@ -72,11 +71,7 @@ public class MockQueueDataGenerator {
 
     private void registerFastCycleMeta(int rideId) {
         RideCapacity cap = getRideCapacity(rideId);
-        String metaKey = META_KEY_PREFIX + rideId;
-        redisTemplate.opsForHash().put(metaKey, "cyclingTimeSeconds", String.valueOf(FAST_CYCLE_SECONDS));
-        redisTemplate.opsForHash().put(metaKey, "capacityPremium", String.valueOf(cap.capacityPremium()));
-        redisTemplate.opsForHash().put(metaKey, "capacityBasic", String.valueOf(cap.capacityBasic()));
-        redisTemplate.opsForSet().add(ACTIVE_ATTRACTIONS_KEY, String.valueOf(rideId));
+        attractionMetaCache.register((long) rideId, FAST_CYCLE_SECONDS, cap.capacityPremium(), cap.capacityBasic());
         logger.info("테스트용 빠른 사이클 등록 - 놀이기구 {} (cyclingTimeSeconds={}초)", rideId, FAST_CYCLE_SECONDS);
     }
 
@@ -0,0 +1,135 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.client.AttractionClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 단체사진 매칭 요청 micro-batcher.
+ *
+ * 탑승 완료 요청 스레드는 크기 제한 큐에 넣기만 하고 (가득 차면 버리고 dropped 로 기록),
+ * batch-window-ms 마다 큐를 비워 놀이기구별로 묶은 뒤 한 번에 보낸다.
+ * bulk 엔드포인트는 attraction-server 가 배포하기 전까지 꺼져 있으며(queue.photo-match.bulk-enabled=false),
+ * 그동안은 묶기만 하고 사용자별 단건 요청을 보낸다 (HTTP 호출 수는 줄지 않는다).
+ * 켠 상태에서 bulk 호출이 404/405 로 실패하면 엔드포인트가 없는 것으로 보고 이 배치를 단건으로 다시 보낸 뒤 bulk 를 끈다.
+ * queue.photo_match.batches 는 실제 bulk 호출만, single_calls 는 단건 호출을 센다.
+ */
+@Slf4j
+@Component
+public class PhotoMatchBatcher {
+
+    @Value("${queue.photo-match.bulk-enabled:false}")
+    private volatile boolean bulkEnabled;
+
+    @Value("${queue.photo-match.max-batch-size:200}")
+    private int maxBatchSize;
+
+    private final AttractionClient attractionClient;
+    private final BlockingQueue<PhotoMatchRequest> pending;
+    private final Counter acceptedCounter;
+    private final Counter droppedCounter;
+    private final Counter batchCounter;
+    private final Counter singleCallCounter;
+
+    public PhotoMatchBatcher(AttractionClient attractionClient,
+                             MeterRegistry meterRegistry,
+                             @Value("${queue.photo-match.queue-capacity:10000}") int queueCapacity) {
+        this.attractionClient = attractionClient;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.acceptedCounter = Counter.builder("queue.photo_match.requests")
+                .tag("result", "accepted").register(meterRegistry);
+        this.droppedCounter = Counter.builder("queue.photo_match.requests")
+                .tag("result", "dropped").register(meterRegistry);
+        this.batchCounter = Counter.builder("queue.photo_match.batches")
+                .description("bulk 엔드포인트 호출 수").register(meterRegistry);
+        this.singleCallCounter = Counter.builder("queue.photo_match.single_calls")
+                .description("bulk 비활성 시 사용자별 단건 호출 수").register(meterRegistry);
+        Gauge.builder("queue.photo_match.pending", pending, BlockingQueue::size).register(meterRegistry);
+    }
+
+    // ── 요청 스레드: 논블로킹 enqueue ────────────────────────────────────────
+    public boolean submit(Long userId, Long attractionId) {
+        if (userId == null || attractionId == null) return false;
+        if (pending.offer(new PhotoMatchRequest(userId, attractionId))) {
+            acceptedCounter.increment();
+            return true;
+        }
+        droppedCounter.increment();
+        log.warn("photo-match queue full, dropped userId={} attractionId={}", userId, attractionId);
+        return false;
+    }
+
+    // ── 배치 flush: 놀이기구별로 묶어 전송 ───────────────────────────────────
+    @Scheduled(fixedDelayString = "${queue.photo-match.batch-window-ms:500}")
+    public void flush() {
+        List<PhotoMatchRequest> drained = new ArrayList<>();
+        while (pending.drainTo(drained, maxBatchSize) > 0) {
+            Map<Long, Set<Long>> byAttraction = new LinkedHashMap<>();
+            for (PhotoMatchRequest request : drained) {
+                byAttraction.computeIfAbsent(request.attractionId(), id -> new LinkedHashSet<>()).add(request.userId());
+            }
+            byAttraction.forEach(this::send);
+            drained.clear();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private void send(Long attractionId, Set<Long> userIds) {
+        if (!bulkEnabled) {
+            sendEach(attractionId, userIds);
+            return;
+        }
+        batchCounter.increment();
+        attractionClient.requestUserPhotoMatchBatch(attractionId, userIds).subscribe(
+                unused -> {},
+                err -> {
+                    if (isEndpointMissing(err)) {
+                        bulkEnabled = false;
+                        log.warn("photo-match bulk endpoint unavailable ({}), disabling bulk and resending {} users individually",
+                                err.getMessage(), userIds.size());
+                        sendEach(attractionId, userIds);
+                    } else {
+                        log.warn("photo-match batch failed attractionId={} users={}: {}",
+                                attractionId, userIds.size(), err.getMessage());
+                    }
+                },
+                () -> log.info("dispatched photo-match batch attractionId={} users={}", attractionId, userIds.size()));
+    }
+
+    private void sendEach(Long attractionId, Set<Long> userIds) {
+        userIds.forEach(userId -> attractionClient.requestUserPhotoMatch(userId, attractionId));
+        singleCallCounter.increment(userIds.size());
+    }
+
+    private static boolean isEndpointMissing(Throwable err) {
+        for (Throwable e = err; e != null; e = e.getCause()) {
+            if (e instanceof WebClientResponseException w) {
+                int status = w.getStatusCode().value();
+                return status == 404 || status == 405;
+            }
+        }
+        return false;
+    }
+
+    private record PhotoMatchRequest(Long userId, Long attractionId) {}
+}
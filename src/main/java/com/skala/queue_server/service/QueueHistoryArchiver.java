@@ -0,0 +1,207 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.entity.TicketType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 일 마감 롤오버: attraction_queue 를 당일 활성 행만 남는 hot 테이블로 유지한다.
+ *
+ * 1. 폐장 시점에 남은 활성 행을 일괄 종료한다 (WAITING → CANCELED, AVAILABLE → NO_SHOW).
+ *    대기열 ZSET 과 사용자 인덱스도 함께 비운다.
+ * 2. 오늘까지의 일자 파티션을 attraction_queue_history 에 만든다.
+ * 3. 종료 행(COMPLETED / CANCELED / NO_SHOW)을 PK keyset chunk 단위로 옮긴다.
+ *    chunk 마다 INSERT IGNORE ... SELECT + DELETE 를 한 트랜잭션에서 실행하므로, 중간에 실패해도 다시 실행하면 이어서 진행된다.
+ * write-behind 모드에서는 저널이 모두 반영된 뒤에만 진행한다 (반영 전 UPDATE 가 옮겨진 행을 놓치지 않게).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QueueHistoryArchiver {
+
+    private static final String ARCHIVE_LOCK_KEY  = "queue:archive:lock";
+    private static final String ACTIVE_ATTRACTIONS_KEY = "attraction:active_ids";
+    private static final String ALMOST_READY_NOTIFIED_KEY = "queue:almost_ready_notified:%d";
+    private static final String HISTORY_TABLE     = "attraction_queue_history";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private static final String COLUMNS =
+            "attraction_queue_id, attraction_cycle_id, user_id, attraction_id, issued_ticket_id, " +
+            "ticket_type, status, ride_code, defer_count, created_at, updated_at";
+
+    @Value("${queue.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${queue.archive.journal-drain-timeout-ms:60000}")
+    private long journalDrainTimeoutMs;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueService queueService;
+    private final UserQueueIndex userQueueIndex;
+    private final QueueJournal queueJournal;
+
+    @Scheduled(cron = "${queue.archive.cron:0 0 23 * * *}")
+    public void rollover() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(
+                ARCHIVE_LOCK_KEY, String.valueOf(System.currentTimeMillis()), Duration.ofHours(1));
+        if (!Boolean.TRUE.equals(locked)) return;
+
+        try {
+            if (!awaitJournalDrained()) {
+                log.error("queue archive skipped: write-behind journal not drained within {}ms", journalDrainTimeoutMs);
+                return;
+            }
+            int closed = closeActive();
+            ensurePartitionsThrough(LocalDate.now());
+            int archived = archiveTerminal();
+            log.info("queue archive rollover done closed={} archived={}", closed, archived);
+        } catch (Exception e) {
+            log.error("queue archive rollover failed", e);
+        }
+    }
+
+    // ── 1. 폐장 시 활성 행 일괄 종료 ────────────────────────────────────────
+    private int closeActive() {
+        // 먼저 대기열을 비워 디스패치가 더 이상 AVAILABLE 로 전환하지 않게 한다.
+        Set<String> attractionIds = redisTemplate.opsForSet().members(ACTIVE_ATTRACTIONS_KEY);
+        if (attractionIds != null) {
+            List<String> queueKeys = new ArrayList<>();
+            for (String id : attractionIds) {
+                for (TicketType ticketType : TicketType.values()) {
+                    queueKeys.add(queueService.getQueueKey(Long.parseLong(id), ticketType));
+                }
+            }
+            redisTemplate.delete(queueKeys);
+        }
+
+        int closed = 0;
+        long afterId = 0L;
+        while (true) {
+            List<ClosingRow> chunk = jdbcTemplate.query(
+                    "SELECT attraction_queue_id, user_id, attraction_id FROM attraction_queue " +
+                    "WHERE status IN ('WAITING', 'AVAILABLE') AND attraction_queue_id > ? " +
+                    "ORDER BY attraction_queue_id LIMIT ?",
+                    (rs, i) -> new ClosingRow(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                    afterId, chunkSize);
+            if (chunk.isEmpty()) break;
+            afterId = chunk.get(chunk.size() - 1).attractionQueueId();
+
+            List<Long> ids = chunk.stream().map(ClosingRow::attractionQueueId).toList();
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "UPDATE attraction_queue SET status = CASE status WHEN 'AVAILABLE' THEN 'NO_SHOW' ELSE 'CANCELED' END, " +
+                    "updated_at = NOW() WHERE attraction_queue_id IN (" + placeholders(ids.size()) + ") " +
+                    "AND status IN ('WAITING', 'AVAILABLE')",
+                    ids.toArray()));
+            closed += updated == null ? 0 : updated;
+
+            clearRedisState(chunk);
+            chunk.stream().map(ClosingRow::userId).distinct().forEach(queueService::publishUserStatusEvent);
+            if (chunk.size() < chunkSize) break;
+        }
+        return closed;
+    }
+
+    private void clearRedisState(List<ClosingRow> rows) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (ClosingRow row : rows) {
+                    ops.opsForHash().delete(userQueueIndex.key(row.userId()), row.attractionId().toString());
+                    ops.delete(String.format(ALMOST_READY_NOTIFIED_KEY, row.attractionQueueId()));
+                }
+                return null;
+            }
+        });
+    }
+
+    // ── 2. 일자 파티션 준비: 마지막 일자 파티션 다음 날부터 day 까지 p_future 를 나눠 만든다 ──
+    private void ensurePartitionsThrough(LocalDate day) {
+        List<String> names = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME LIKE 'p2%'",
+                String.class, HISTORY_TABLE);
+        LocalDate latest = names.stream()
+                .map(name -> LocalDate.parse(name, PARTITION_NAME))
+                .max(LocalDate::compareTo)
+                .orElse(null);
+
+        // 첫 일자 파티션은 그 이전 날짜 행까지 함께 받는다.
+        LocalDate from = latest == null ? day : latest.plusDays(1);
+        for (LocalDate d = from; !d.isAfter(day); d = d.plusDays(1)) {
+            jdbcTemplate.execute("ALTER TABLE " + HISTORY_TABLE + " REORGANIZE PARTITION p_future INTO (" +
+                    "PARTITION " + d.format(PARTITION_NAME) +
+                    " VALUES LESS THAN (TO_DAYS('" + d.plusDays(1) + "')), " +
+                    "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+            log.info("created history partition {}", d.format(PARTITION_NAME));
+        }
+    }
+
+    // ── 3. 종료 행 이동 ───────────────────────────────────────────────────────
+    private int archiveTerminal() {
+        int archived = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT attraction_queue_id FROM attraction_queue " +
+                    "WHERE status IN ('COMPLETED', 'CANCELED', 'NO_SHOW') AND attraction_queue_id > ? " +
+                    "ORDER BY attraction_queue_id LIMIT ?",
+                    Long.class, afterId, chunkSize);
+            if (ids.isEmpty()) break;
+            afterId = ids.get(ids.size() - 1);
+
+            String in = placeholders(ids.size());
+            Integer moved = transactionTemplate.execute(status -> {
+                jdbcTemplate.update("INSERT IGNORE INTO " + HISTORY_TABLE + " (" + COLUMNS + ") " +
+                        "SELECT " + COLUMNS + " FROM attraction_queue WHERE attraction_queue_id IN (" + in + ")",
+                        ids.toArray());
+                return jdbcTemplate.update("DELETE FROM attraction_queue WHERE attraction_queue_id IN (" + in + ") " +
+                        "AND status IN ('COMPLETED', 'CANCELED', 'NO_SHOW')", ids.toArray());
+            });
+            archived += moved == null ? 0 : moved;
+            if (ids.size() < chunkSize) break;
+        }
+        return archived;
+    }
+
+    private boolean awaitJournalDrained() {
+        if (!queueJournal.isEnabled()) return true;
+        long deadline = System.currentTimeMillis() + journalDrainTimeoutMs;
+        while (true) {
+            Long backlog = redisTemplate.opsForStream().size(QueueJournal.STREAM_KEY);
+            if (backlog == null || backlog == 0) return true;
+            if (System.currentTimeMillis() >= deadline) return false;
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private record ClosingRow(Long attractionQueueId, Long userId, Long attractionId) {}
+}
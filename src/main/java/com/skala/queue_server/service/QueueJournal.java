@@ -0,0 +1,206 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * attraction_queue 상태 전이 저널 (write-behind 모드 전용).
+ *
+ * queue.write-behind.enabled=true 이면 상태 전이를 MariaDB 에 바로 쓰지 않고 Redis Stream 에 추가하고,
+ * QueueJournalWriter 가 배치로 모아 반영한다. 추가는 호출 트랜잭션 커밋 이후에 해서 롤백된 전이가 저널에 남지 않게 한다.
+ * XADD 가 실패하면 짧게 물러나며 append-retries 번까지 다시 시도하고, 그래도 실패하면 예외로 요청을 실패시킨다.
+ * 행 ID 는 엔티티와 같은 attraction_queue_seq 에서 50개 구간 단위(pooled-lo)로 미리 받아 두므로,
+ * 반영 전에도 인덱스/이벤트에 쓸 수 있고 direct 모드로 발급된 ID 와도 겹치지 않는다.
+ * 저널의 내구성은 Redis 영속화(AOF) 설정을 따른다.
+ */
+@Slf4j
+@Component
+public class QueueJournal {
+
+    public static final String STREAM_KEY = "queue:journal";
+    private static final String NEXT_ID_BLOCK_SQL = "SELECT NEXTVAL(attraction_queue_seq)";
+    private static final int ID_BLOCK_SIZE = 50;   // 시퀀스 INCREMENT BY = 엔티티 allocationSize
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int appendRetries;
+    private final long appendBackoffMs;
+    private final ReentrantLock idLock = new ReentrantLock();
+
+    private long nextId;
+    private long idBlockEnd;
+
+    public QueueJournal(RedisTemplate<String, String> redisTemplate,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${queue.write-behind.enabled:false}") boolean enabled,
+                        @Value("${queue.write-behind.append-retries:3}") int appendRetries,
+                        @Value("${queue.write-behind.append-backoff-ms:50}") long appendBackoffMs) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.appendRetries = appendRetries;
+        this.appendBackoffMs = appendBackoffMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 구간을 다 쓰면 NEXTVAL 한 번으로 다음 50개를 받는다 (가상 스레드 pinning 을 피하려고 synchronized 대신 lock).
+    public Long nextId() {
+        idLock.lock();
+        try {
+            if (nextId >= idBlockEnd) {
+                Long low = jdbcTemplate.queryForObject(NEXT_ID_BLOCK_SQL, Long.class);
+                nextId = low;
+                idBlockEnd = low + ID_BLOCK_SIZE;
+            }
+            return nextId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    public void append(Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                write(entry);
+            }
+        });
+    }
+
+    // afterCommit 에서 던진 예외는 호출자에게 그대로 전달되므로, 재시도까지 실패하면 요청이 실패로 끝난다.
+    private void write(Entry entry) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                redisTemplate.opsForStream().add(StreamRecords.newRecord().in(STREAM_KEY).ofMap(entry.toMap()));
+                return;
+            } catch (Exception e) {
+                if (attempt >= appendRetries) {
+                    log.error("queue journal append failed after {} retries entry={}", appendRetries, entry.toMap(), e);
+                    throw new IllegalStateException("queue journal append failed", e);
+                }
+                log.warn("queue journal append failed, retrying attempt={}: {}", attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(appendBackoffMs * (attempt + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("queue journal append interrupted", e);
+                }
+            }
+        }
+    }
+
+    public enum Op { INSERT, TRANSITION, DISPATCH, DEFER, ASSIGN_CYCLE }
+
+    /**
+     * 저널 한 건. op 별로 쓰는 필드만 채우고 나머지는 null 이다.
+     *
+     * INSERT       ids(1), userId, attractionId, issuedTicketId, ticketType
+     * TRANSITION   ids, from, to
+     * DISPATCH     ids, from, to, cycleId        (회차와 함께 전이)
+     * DEFER        ids(1), from, cycleId, deferCount (미루기 후 누적 횟수, 절대값)
+     * ASSIGN_CYCLE ids(1), from, cycleId          (회차가 비어 있을 때만)
+     */
+    public record Entry(Op op, List<Long> ids, long at,
+                        Long userId, Long attractionId, Long issuedTicketId, TicketType ticketType,
+                        List<QueueStatus> from, QueueStatus to, Long cycleId, Integer deferCount) {
+
+        public static Entry insert(Long id, Long userId, Long attractionId, Long issuedTicketId,
+                                   TicketType ticketType) {
+            return new Entry(Op.INSERT, List.of(id), System.currentTimeMillis(),
+                    userId, attractionId, issuedTicketId, ticketType, null, null, null, null);
+        }
+
+        public static Entry transition(Collection<Long> ids, Collection<QueueStatus> from, QueueStatus to) {
+            return new Entry(Op.TRANSITION, List.copyOf(ids), System.currentTimeMillis(),
+                    null, null, null, null, List.copyOf(from), to, null, null);
+        }
+
+        public static Entry dispatch(Collection<Long> ids, QueueStatus from, QueueStatus to, Long cycleId) {
+            return new Entry(Op.DISPATCH, List.copyOf(ids), System.currentTimeMillis(),
+                    null, null, null, null, List.of(from), to, cycleId, null);
+        }
+
+        public static Entry defer(Long id, Collection<QueueStatus> from, Long cycleId, int deferCount) {
+            return new Entry(Op.DEFER, List.of(id), System.currentTimeMillis(),
+                    null, null, null, null, List.copyOf(from), QueueStatus.WAITING, cycleId, deferCount);
+        }
+
+        public static Entry assignCycle(Long id, QueueStatus status, Long cycleId) {
+            return new Entry(Op.ASSIGN_CYCLE, List.of(id), System.currentTimeMillis(),
+                    null, null, null, null, List.of(status), null, cycleId, null);
+        }
+
+        public Map<String, String> toMap() {
+            Map<String, String> map = new LinkedHashMap<>();
+            map.put("op", op.name());
+            map.put("ids", ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+            map.put("at", String.valueOf(at));
+            putIfPresent(map, "userId", userId);
+            putIfPresent(map, "attractionId", attractionId);
+            putIfPresent(map, "issuedTicketId", issuedTicketId);
+            putIfPresent(map, "ticketType", ticketType);
+            if (from != null) {
+                map.put("from", from.stream().map(Enum::name).collect(Collectors.joining(",")));
+            }
+            putIfPresent(map, "to", to);
+            putIfPresent(map, "cycleId", cycleId);
+            putIfPresent(map, "deferCount", deferCount);
+            return map;
+        }
+
+        public static Entry fromMap(Map<?, ?> map) {
+            return new Entry(
+                    Op.valueOf(string(map, "op")),
+                    Arrays.stream(string(map, "ids").split(",")).map(Long::valueOf).toList(),
+                    Long.parseLong(string(map, "at")),
+                    longOrNull(map, "userId"),
+                    longOrNull(map, "attractionId"),
+                    longOrNull(map, "issuedTicketId"),
+                    map.get("ticketType") == null ? null : TicketType.valueOf(string(map, "ticketType")),
+                    map.get("from") == null ? null
+                            : Arrays.stream(string(map, "from").split(",")).map(QueueStatus::valueOf).toList(),
+                    map.get("to") == null ? null : QueueStatus.valueOf(string(map, "to")),
+                    longOrNull(map, "cycleId"),
+                    map.get("deferCount") == null ? null : Integer.valueOf(string(map, "deferCount")));
+        }
+
+        private static void putIfPresent(Map<String, String> map, String key, Object value) {
+            if (value != null) map.put(key, value instanceof Enum<?> e ? e.name() : value.toString());
+        }
+
+        private static String string(Map<?, ?> map, String key) {
+            Object value = map.get(key);
+            if (value == null) throw new IllegalArgumentException("missing journal field: " + key);
+            return value.toString();
+        }
+
+        private static Long longOrNull(Map<?, ?> map, String key) {
+            Object value = map.get(key);
+            return value == null ? null : Long.valueOf(value.toString());
+        }
+    }
+}
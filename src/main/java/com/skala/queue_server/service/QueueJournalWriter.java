@@ -0,0 +1,285 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.redis.QueueRedisScripts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * write-behind 저널(QueueJournal) 을 attraction_queue 에 반영하는 백그라운드 writer.
+ *
+ * 레플리카 중 lease 를 잡은 하나만 읽어 저널 순서를 지킨다. consumer 이름은 레플리카 ID 이고,
+ * 이전 writer 가 ACK 하지 못한 항목(pending)은 먼저 자기 앞으로 가져온(XCLAIM) 뒤 순서대로 재반영한다.
+ * 한 번의 drain 은 max-batches 배치까지만 처리하고, 배치마다 lease 를 연장해 잃었으면 바로 멈춘다.
+ * 반영 트랜잭션은 커밋 직전에 펜싱 토큰으로 lease 를 한 번 더 연장하고, 실패하면(다른 writer 가 잡음) 롤백한다.
+ * 그래서 멈춰 있다 깨어난 이전 writer 의 배치가 새 writer 의 반영 뒤에 커밋되지 않는다.
+ * 읽은 배치는 한 트랜잭션에서 연속된 INSERT 를 multi-row INSERT 로, 전이는 ID 목록 단위 UPDATE 로 반영한 뒤
+ * ACK + XDEL 한다. 반영 전에 죽으면 다음 writer 가 ACK 되지 않은 항목부터 다시 반영하며,
+ * 모든 SQL 은 재실행해도 결과가 같다 (INSERT IGNORE, 현재 상태 조건부 UPDATE, 미루기 횟수는 절대값).
+ * 스트림에는 반영 전 항목만 남으므로 길이와 가장 오래된 항목의 나이를 지연 지표로 노출한다.
+ */
+@Slf4j
+@Component
+public class QueueJournalWriter {
+
+    private static final String GROUP        = "queue-writer";
+    private static final String LEASE_KEY    = "queue:journal:writer_lease";
+    private static final String FENCE_KEY    = "queue:journal:writer_fence";
+    private static final int INSERT_CHUNK    = 500;
+
+    private static final String INSERT_COLUMNS =
+            "INSERT IGNORE INTO attraction_queue (attraction_queue_id, user_id, attraction_id, issued_ticket_id, " +
+            "ticket_type, status, defer_count, created_at, updated_at) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, 'WAITING', 0, ?, ?)";
+
+    @Value("${queue.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${queue.write-behind.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${queue.write-behind.max-batches:20}")
+    private int maxBatches;
+
+    private final QueueJournal queueJournal;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueRedisScripts queueRedisScripts;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String consumer;
+    private final Counter appliedCounter;
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMs = new AtomicLong();
+
+    private volatile boolean groupReady;
+
+    public QueueJournalWriter(QueueJournal queueJournal,
+                              RedisTemplate<String, String> redisTemplate,
+                              QueueRedisScripts queueRedisScripts,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              DispatchOwnership dispatchOwnership,
+                              MeterRegistry meterRegistry) {
+        this.queueJournal = queueJournal;
+        this.redisTemplate = redisTemplate;
+        this.queueRedisScripts = queueRedisScripts;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.consumer = dispatchOwnership.getReplicaId();
+        this.appliedCounter = Counter.builder("queue.journal.applied").register(meterRegistry);
+        Gauge.builder("queue.journal.backlog", backlog, AtomicLong::get)
+                .description("DB 에 아직 반영되지 않은 저널 항목 수").register(meterRegistry);
+        Gauge.builder("queue.journal.lag_ms", lagMs, AtomicLong::get)
+                .description("반영되지 않은 가장 오래된 저널 항목의 나이").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${queue.write-behind.poll-ms:200}")
+    public void drain() {
+        if (!queueJournal.isEnabled()) return;
+        updateLag();
+
+        long fenceToken = queueRedisScripts.acquireLease(LEASE_KEY, FENCE_KEY, leaseMs);
+        if (fenceToken <= 0) return;
+        try {
+            if (!ensureGroup()) return;
+
+            // 이전 writer 가 ACK 하지 못한 항목을 가져와 순서대로 재반영한 뒤 새 항목을 읽는다.
+            for (int batch = 0; batch < maxBatches; batch++) {
+                if (!queueRedisScripts.renewLease(LEASE_KEY, fenceToken, leaseMs)) {
+                    log.warn("queue journal writer lost its lease fenceToken={}, stopping drain", fenceToken);
+                    break;
+                }
+                claimPending();
+                List<MapRecord<String, Object, Object>> records = read(ReadOffset.from("0"));
+                if (records.isEmpty()) records = read(ReadOffset.lastConsumed());
+                if (records.isEmpty()) break;
+                apply(records, fenceToken);
+                if (records.size() < batchSize) break;
+            }
+        } catch (Exception e) {
+            log.error("queue journal drain failed", e);
+        } finally {
+            queueRedisScripts.releaseLease(LEASE_KEY, fenceToken);
+        }
+        updateLag();
+    }
+
+    // 다른 consumer 이름(이전 writer)에 남은 pending 을 가져온다. lease 를 가진 writer 는 하나뿐이라 유휴 시간 조건은 두지 않는다.
+    private void claimPending() {
+        PendingMessages pending = redisTemplate.opsForStream()
+                .pending(QueueJournal.STREAM_KEY, GROUP, Range.unbounded(), batchSize);
+        RecordId[] others = pending.stream()
+                .filter(message -> !consumer.equals(message.getConsumerName()))
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+        if (others.length == 0) return;
+        redisTemplate.opsForStream().claim(QueueJournal.STREAM_KEY, GROUP, consumer, Duration.ZERO, others);
+        log.info("claimed {} pending queue journal records from previous writers", others.length);
+    }
+
+    private void apply(List<MapRecord<String, Object, Object>> records, long fenceToken) {
+        List<QueueJournal.Entry> entries = new ArrayList<>(records.size());
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                entries.add(QueueJournal.Entry.fromMap(record.getValue()));
+            } catch (IllegalArgumentException e) {
+                // 해석할 수 없는 항목은 재시도해도 같으므로 기록만 남기고 건너뛴다.
+                log.error("skipping malformed queue journal record id={} value={}", record.getId(), record.getValue());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            int from = 0;
+            while (from < entries.size()) {
+                int to = from;
+                while (to < entries.size() && entries.get(to).op() == QueueJournal.Op.INSERT) to++;
+                if (to > from) {
+                    insert(entries.subList(from, to));
+                    from = to;
+                } else {
+                    update(entries.get(from++));
+                }
+            }
+            // 커밋 직전 펜싱 확인: lease 가 아직 내 토큰일 때만 커밋한다.
+            if (!queueRedisScripts.renewLease(LEASE_KEY, fenceToken, leaseMs)) {
+                throw new IllegalStateException("queue journal writer fencing token superseded fenceToken=" + fenceToken);
+            }
+        });
+
+        RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+        redisTemplate.opsForStream().acknowledge(QueueJournal.STREAM_KEY, GROUP, ids);
+        redisTemplate.opsForStream().delete(QueueJournal.STREAM_KEY, ids);
+        appliedCounter.increment(records.size());
+    }
+
+    private void insert(List<QueueJournal.Entry> inserts) {
+        for (int from = 0; from < inserts.size(); from += INSERT_CHUNK) {
+            List<QueueJournal.Entry> chunk = inserts.subList(from, Math.min(from + INSERT_CHUNK, inserts.size()));
+            List<Object> args = new ArrayList<>(chunk.size() * 7);
+            for (QueueJournal.Entry e : chunk) {
+                LocalDateTime at = toDateTime(e.at());
+                args.add(e.ids().get(0));
+                args.add(e.userId());
+                args.add(e.attractionId());
+                args.add(e.issuedTicketId());
+                args.add(e.ticketType().name());
+                args.add(at);
+                args.add(at);
+            }
+            jdbcTemplate.update(INSERT_COLUMNS + String.join(", ", Collections.nCopies(chunk.size(), INSERT_ROW)),
+                    args.toArray());
+        }
+    }
+
+    private void update(QueueJournal.Entry e) {
+        String ids = placeholders(e.ids().size());
+        String from = placeholders(e.from().size());
+        List<Object> args = new ArrayList<>();
+        String sql = switch (e.op()) {
+            case TRANSITION -> {
+                args.add(e.to().name());
+                args.add(toDateTime(e.at()));
+                yield "UPDATE attraction_queue SET status = ?, updated_at = ? " +
+                        "WHERE attraction_queue_id IN (" + ids + ") AND status IN (" + from + ")";
+            }
+            case DISPATCH -> {
+                args.add(e.to().name());
+                args.add(e.cycleId());
+                args.add(toDateTime(e.at()));
+                yield "UPDATE attraction_queue SET status = ?, attraction_cycle_id = ?, updated_at = ? " +
+                        "WHERE attraction_queue_id IN (" + ids + ") AND status IN (" + from + ")";
+            }
+            case DEFER -> {
+                args.add(e.deferCount());
+                args.add(e.cycleId());
+                args.add(toDateTime(e.at()));
+                yield "UPDATE attraction_queue SET status = 'WAITING', defer_count = ?, attraction_cycle_id = ?, " +
+                        "updated_at = ? WHERE attraction_queue_id IN (" + ids + ") AND status IN (" + from + ") " +
+                        "AND defer_count < ?";
+            }
+            case ASSIGN_CYCLE -> {
+                args.add(e.cycleId());
+                yield "UPDATE attraction_queue SET attraction_cycle_id = ? " +
+                        "WHERE attraction_queue_id IN (" + ids + ") AND status IN (" + from + ") " +
+                        "AND attraction_cycle_id IS NULL";
+            }
+            case INSERT -> throw new IllegalStateException("INSERT is applied in bulk");
+        };
+        args.addAll(e.ids());
+        e.from().forEach(s -> args.add(s.name()));
+        if (e.op() == QueueJournal.Op.DEFER) args.add(e.deferCount());
+        jdbcTemplate.update(sql, args.toArray());
+    }
+
+    private List<MapRecord<String, Object, Object>> read(ReadOffset offset) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+                Consumer.from(GROUP, consumer),
+                StreamReadOptions.empty().count(batchSize),
+                StreamOffset.create(QueueJournal.STREAM_KEY, offset));
+        return records == null ? List.of() : records;
+    }
+
+    // 스트림이 아직 없으면(첫 추가 전) 다음 주기에 다시 시도한다. 그룹은 처음부터(0) 읽도록 만든다.
+    private boolean ensureGroup() {
+        if (groupReady) return true;
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(QueueJournal.STREAM_KEY))) return false;
+        try {
+            redisTemplate.opsForStream().createGroup(QueueJournal.STREAM_KEY, ReadOffset.from("0"), GROUP);
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                log.warn("queue journal group create failed: {}", e.getMessage());
+                return false;
+            }
+        }
+        groupReady = true;
+        return true;
+    }
+
+    private void updateLag() {
+        try {
+            Long size = redisTemplate.opsForStream().size(QueueJournal.STREAM_KEY);
+            backlog.set(size == null ? 0L : size);
+            List<MapRecord<String, Object, Object>> oldest = redisTemplate.opsForStream()
+                    .range(QueueJournal.STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+            lagMs.set(oldest == null || oldest.isEmpty()
+                    ? 0L
+                    : Math.max(System.currentTimeMillis() - oldest.get(0).getId().getTimestamp(), 0L));
+        } catch (Exception e) {
+            log.debug("queue journal lag update failed: {}", e.getMessage());
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,101 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.entity.AttractionQueue;
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import com.skala.queue_server.repository.AttractionQueueRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * attraction_queue 상태 전이 쓰기 경로.
+ *
+ * 기본(direct) 모드는 호출 트랜잭션 안에서 조건부 UPDATE/INSERT 를 바로 실행하고,
+ * write-behind 모드는 QueueJournal 에 추가만 한다. write-behind 모드에서는 Redis(ZSET + 사용자 인덱스)가
+ * 활성 대기열의 기준이므로 전이 결과는 항상 반영된 것으로 본다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueuePersistence {
+
+    private final AttractionQueueRepository repository;
+    private final QueueJournal queueJournal;
+
+    // 새 WAITING 행을 만들고 행 ID 를 돌려준다.
+    public Long insertWaiting(Long userId, Long attractionId, Long issuedTicketId, TicketType ticketType) {
+        if (queueJournal.isEnabled()) {
+            Long id = queueJournal.nextId();
+            queueJournal.append(QueueJournal.Entry.insert(id, userId, attractionId, issuedTicketId, ticketType));
+            return id;
+        }
+        AttractionQueue queue = AttractionQueue.builder()
+                .userId(userId)
+                .attractionId(attractionId)
+                .issuedTicketId(issuedTicketId)
+                .ticketType(ticketType)
+                .status(QueueStatus.WAITING)
+                .deferCount(0)
+                .build();
+        return repository.save(queue).getAttractionQueueId();
+    }
+
+    public boolean transition(Long id, Collection<QueueStatus> from, QueueStatus to) {
+        if (queueJournal.isEnabled()) {
+            queueJournal.append(QueueJournal.Entry.transition(List.of(id), from, to));
+            return true;
+        }
+        return repository.transition(id, from, to, LocalDateTime.now()) > 0;
+    }
+
+    // NO_SHOW 처리: AVAILABLE 이고 before 이전에 갱신된 행만 (write-behind 모드는 AVAILABLE 조건만 저널에 남긴다)
+    // 실제로 NO_SHOW 로 바뀐(바뀔) id 만 돌려준다. 저널 모드는 조건부 전이를 나중에 적용하므로 요청한 id 를 그대로 돌려준다.
+    public List<Long> markNoShow(Collection<Long> ids, LocalDateTime before) {
+        if (ids.isEmpty()) return List.of();
+        if (queueJournal.isEnabled()) {
+            queueJournal.append(QueueJournal.Entry.transition(
+                    ids, List.of(QueueStatus.AVAILABLE), QueueStatus.NO_SHOW));
+            return List.copyOf(ids);
+        }
+        List<Long> expired = repository.lockExpiredAvailable(ids, before);
+        if (!expired.isEmpty()) {
+            repository.markNoShow(expired, before, LocalDateTime.now());
+        }
+        return expired;
+    }
+
+    // 디스패치: from 상태인 행만 to 로 바꾸며 탑승 회차를 함께 기록
+    // 실제로 전이된(될) id 만 돌려준다. 저널 모드는 요청한 id 를 그대로 돌려준다 (markNoShow 와 같음).
+    public List<Long> transitionWithCycle(Collection<Long> ids, QueueStatus from, QueueStatus to, Long cycleId) {
+        if (ids.isEmpty()) return List.of();
+        if (queueJournal.isEnabled()) {
+            queueJournal.append(QueueJournal.Entry.dispatch(ids, from, to, cycleId));
+            return List.copyOf(ids);
+        }
+        List<Long> locked = repository.lockByStatus(ids, from);
+        if (!locked.isEmpty()) {
+            repository.transitionWithCycle(locked, from, to, cycleId, LocalDateTime.now());
+        }
+        return locked;
+    }
+
+    // 미루기: WAITING 으로 되돌리고 누적 미루기 횟수(deferCount)와 새 회차를 기록
+    public boolean applyDefer(Long id, Collection<QueueStatus> from, Long cycleId, int deferCount) {
+        if (queueJournal.isEnabled()) {
+            queueJournal.append(QueueJournal.Entry.defer(id, from, cycleId, deferCount));
+            return true;
+        }
+        return repository.applyDefer(id, from, cycleId, LocalDateTime.now()) > 0;
+    }
+
+    public void assignCycleIdIfUnset(Long id, QueueStatus status, Long cycleId) {
+        if (queueJournal.isEnabled()) {
+            queueJournal.append(QueueJournal.Entry.assignCycle(id, status, cycleId));
+            return;
+        }
+        repository.assignCycleIdIfUnset(id, status, cycleId);
+    }
+}
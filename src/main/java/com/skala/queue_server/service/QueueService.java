@@ -1,7 +1,6 @@
 package com.skala.queue_server.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.skala.queue_server.client.AttractionClient;
+import com.skala.queue_server.client.AttractionCycleCache;
 import com.skala.queue_server.client.TicketClient;
 import com.skala.queue_server.dto.*;
 import com.skala.queue_server.entity.AttractionQueue;
@@ -9,18 +8,25 @@ import com.skala.queue_server.entity.QueueStatus;
 import com.skala.queue_server.entity.TicketType;
 import com.skala.queue_server.exception.ErrorCode;
 import com.skala.queue_server.exception.QueueException;
+import com.skala.queue_server.redis.QueueRedisScripts;
 import com.skala.queue_server.repository.AttractionQueueRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @Slf4j
 @Service
@@ -29,9 +35,7 @@ public class QueueService {
 
     private static final String QUEUE_KEY           = "queue:attraction:%d:%s";
     private static final String META_KEY            = "attraction:meta:%d";
-    private static final String ACTIVE_ATTRACTIONS  = "attraction:active_ids";
     private static final String ALMOST_READY_NOTIFIED_KEY = "queue:almost_ready_notified:%d";
-    private static final String TOPIC_USER_STATUS   = "queue-user-status-event";
     private static final List<QueueStatus> ACTIVE   = List.of(QueueStatus.WAITING, QueueStatus.AVAILABLE);
 
     @Value("${queue.defer.max-count:3}")
@@ -42,68 +46,88 @@ public class QueueService {
 
     private final AttractionQueueRepository repository;
     private final RedisTemplate<String, String> redisTemplate;
-    private final AttractionClient attractionClient;
     private final TicketClient ticketClient;
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final QueueRedisScripts queueRedisScripts;
+    private final UserStatusPublisher userStatusPublisher;
+    private final AttractionMetaCache attractionMetaCache;
+    private final AttractionCycleCache attractionCycleCache;
+    private final ExecutorService lookupExecutor;
+    private final PhotoMatchBatcher photoMatchBatcher;
+    private final UserQueueIndex userQueueIndex;
+    private final QueuePersistence queuePersistence;
 
     // ── 대기열 등록 ──────────────────────────────────────────────────────────
     @Transactional
     public EnqueueResponse enqueue(Long userId, Long attractionId, Long issuedTicketId) {
-        // ticket-server에서 티켓 소유권/유효성 검증 및 ticketType 조회
-        IssuedTicketValidationResponse ticketInfo = ticketClient.getIssuedTicket(issuedTicketId);
-        if (ticketInfo == null) {
-            throw new QueueException(ErrorCode.ISSUED_TICKET_NOT_FOUND);
-        }
-        if (!userId.equals(ticketInfo.getOwnerUserId())) {
-            throw new QueueException(ErrorCode.FORBIDDEN);
+        // 놀이기구 메타 + 현재 회차 조회는 티켓 검증과 무관하므로 가상 스레드에서 먼저 시작해 두고,
+        // 티켓 검증이 실패하면 취소(interrupt)한다.
+        Future<AttractionLookup> attractionLookup = lookupExecutor.submit(() -> lookupAttraction(attractionId));
+
+        TicketType ticketType;
+        try {
+            // ticket-server에서 티켓 소유권/유효성 검증 및 ticketType 조회
+            IssuedTicketValidationResponse ticketInfo = ticketClient.getIssuedTicket(issuedTicketId);
+            if (ticketInfo == null) {
+                throw new QueueException(ErrorCode.ISSUED_TICKET_NOT_FOUND);
+            }
+            if (!userId.equals(ticketInfo.getOwnerUserId())) {
+                throw new QueueException(ErrorCode.FORBIDDEN);
+            }
+            if (!"USED".equals(ticketInfo.getEntryStatus())) {
+                throw new QueueException(ErrorCode.TICKET_NOT_ENTERED);
+            }
+            ticketType = parseTicketType(ticketInfo.getTicketType());
+        } catch (RuntimeException e) {
+            attractionLookup.cancel(true);
+            throw e;
         }
-        if (!"USED".equals(ticketInfo.getEntryStatus())) {
-            throw new QueueException(ErrorCode.TICKET_NOT_ENTERED);
+
+        AttractionLookup attraction = awaitLookup(attractionLookup);
+        if (attraction.meta() == null) {
+            throw new QueueException(ErrorCode.ATTRACTION_NOT_FOUND);
         }
-        TicketType ticketType = parseTicketType(ticketInfo.getTicketType());
 
         String metaKey = String.format(META_KEY, attractionId);
-        if (!Boolean.TRUE.equals(redisTemplate.hasKey(metaKey))) {
-            AttractionResponse attraction = attractionClient.getAttraction(attractionId);
-            if (attraction == null) {
+        String queueKey = String.format(QUEUE_KEY, attractionId, ticketType.name());
+        String userIndexKey = userQueueIndex.key(userId);
+        String indexValue = new UserQueueIndex.Entry(attractionId, QueueStatus.WAITING, ticketType, null, 0).encode();
+
+        // 인덱스 재구성 전에는 스크립트의 중복 확인이 비어 있는 해시를 보므로 DB 로 한 번 더 확인한다.
+        if (!userQueueIndex.isReady() && userQueueIndex.get(userId, attractionId) != null) {
+            throw new QueueException(ErrorCode.ALREADY_IN_QUEUE);
+        }
+
+        // 중복 확인(사용자 인덱스) + 메타 확인 + ZADD(없을 때만) + 인덱스 기록 + 순번/수용 인원/회차 시간 조회를
+        // 한 번의 스크립트로 처리
+        QueueRedisScripts.EnqueueResult joined = queueRedisScripts.enqueue(
+                queueKey, metaKey, userIndexKey, userId, capacityField(ticketType), attractionId, indexValue);
+        if (joined.metaMissing()) {
+            if (attractionMetaCache.repopulate(attractionId) == null) {
+                throw new QueueException(ErrorCode.ATTRACTION_NOT_FOUND);
+            }
+            joined = queueRedisScripts.enqueue(
+                    queueKey, metaKey, userIndexKey, userId, capacityField(ticketType), attractionId, indexValue);
+            if (joined.metaMissing()) {
                 throw new QueueException(ErrorCode.ATTRACTION_NOT_FOUND);
             }
-            redisTemplate.opsForHash().put(metaKey, "cyclingTimeSeconds", String.valueOf(attraction.getRidingTime()));
-            redisTemplate.opsForHash().put(metaKey, "capacityPremium",    String.valueOf(attraction.getCapacityPremium()));
-            redisTemplate.opsForHash().put(metaKey, "capacityBasic",      String.valueOf(attraction.getCapacityBasic()));
-            redisTemplate.opsForHash().put(metaKey, "attractionName",     attraction.getAttractionName());
-            redisTemplate.opsForSet().add(ACTIVE_ATTRACTIONS, attractionId.toString());
-            log.info("cached attraction meta from attraction-server attractionId={}", attractionId);
         }
-        if (repository.existsByUserIdAndAttractionIdAndStatusIn(userId, attractionId, ACTIVE)) {
+        if (joined.alreadyQueued()) {
             throw new QueueException(ErrorCode.ALREADY_IN_QUEUE);
         }
-        String queueKey = String.format(QUEUE_KEY, attractionId, ticketType.name());
-
-        // 내 대기 순번 계산을 위해 추가 전 현재 크기 확인
-        Long currentQueueSize = redisTemplate.opsForZSet().size(queueKey);
-        int queueSizeBefore = currentQueueSize != null ? currentQueueSize.intValue() : 0;
+        removeOnRollback(queueKey, userId, attractionId, joined.added());
 
-        // 탑승 예정 회차 계산 → attractionCycleId 미리 확정
-        int estimatedCycleNumber = calcEstimatedCycleNumber(attractionId, metaKey, ticketType, queueSizeBefore);
-        Long attractionCycleId = resolveAttractionCycleId(attractionId, estimatedCycleNumber);
+        // 탑승 예정 회차 번호는 바로 계산하고 (내 앞 대기 인원 = 실제 rank),
+        // attractionCycleId 확정은 커밋 이후 비동기로 채운다.
+        int estimatedCycleNumber = estimatedCycleNumber(
+                attraction.currentCycleNumber(), joined.capacity(), Math.max(joined.rank(), 0));
 
-        redisTemplate.opsForZSet().add(queueKey, userId.toString(), System.currentTimeMillis());
+        int position  = joined.position();
+        int estimated = calcEstimatedMinutes(position, joined.capacity(), joined.cyclingTimeSeconds());
 
-        int position  = getPosition(queueKey, userId);
-        int estimated = calcEstimatedMinutes(metaKey, ticketType, position);
-
-        AttractionQueue queue = AttractionQueue.builder()
-                .userId(userId)
-                .attractionId(attractionId)
-                .issuedTicketId(issuedTicketId)
-                .ticketType(ticketType)
-                .status(QueueStatus.WAITING)
-                .attractionCycleId(attractionCycleId)
-                .deferCount(0)
-                .build();
-        repository.save(queue);
+        Long attractionQueueId = queuePersistence.insertWaiting(userId, attractionId, issuedTicketId, ticketType);
+        userQueueIndex.put(userId, new UserQueueIndex.Entry(
+                attractionId, QueueStatus.WAITING, ticketType, attractionQueueId, 0));
+        assignCycleIdAfterCommit(attractionQueueId, attractionId, estimatedCycleNumber);
 
         publishUserStatusEvent(userId);
 
@@ -111,28 +135,53 @@ public class QueueService {
     }
 
     // ── 대기열 상태 조회 ──────────────────────────────────────────────────────
-    @Transactional(readOnly = true)
+    // 사용자 인덱스(HGETALL) + 순번(ZRANK 파이프라인) + 메타(near-cache) 만으로 응답하고 DB 는 읽지 않는다.
     public QueueStatusResponse getStatus(Long userId, Long requesterId) {
         if (!userId.equals(requesterId)) {
             throw new QueueException(ErrorCode.FORBIDDEN);
         }
 
-        List<QueueStatusItem> items = repository.findByUserIdAndStatusIn(userId, ACTIVE)
-                .stream().map(q -> {
-                    String queueKey = String.format(QUEUE_KEY, q.getAttractionId(), q.getTicketType().name());
-                    String metaKey  = String.format(META_KEY, q.getAttractionId());
-                    int position    = q.getStatus() == QueueStatus.AVAILABLE ? 0 : getPosition(queueKey, userId);
-                    int estimated   = calcEstimatedMinutes(metaKey, q.getTicketType(), position);
-                    return new QueueStatusItem(
-                            q.getAttractionId(),
-                            getAttractionName(q.getAttractionId()),
-                            q.getTicketType().name(),
-                            q.getStatus().name(),
-                            position,
-                            estimated,
-                            q.getDeferCount()
-                    );
-                }).toList();
+        List<UserQueueIndex.Entry> entries = userQueueIndex.entries(userId);
+        if (entries.isEmpty()) {
+            return new QueueStatusResponse(userId, List.of());
+        }
+
+        String member = userId.toString();
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (UserQueueIndex.Entry e : entries) {
+                    ops.opsForZSet().rank(String.format(QUEUE_KEY, e.attractionId(), e.ticketType().name()), member);
+                }
+                return null;
+            }
+        }, RedisSerializer.string());
+
+        List<QueueStatusItem> items = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            UserQueueIndex.Entry e = entries.get(i);
+            Object rank = results.get(i);
+            AttractionMeta meta = attractionMetaCache.get(e.attractionId());
+
+            int position  = e.status() == QueueStatus.AVAILABLE || rank == null
+                    ? 0 : ((Number) rank).intValue() + 1;
+            if (meta == null || meta.attractionName() == null) {
+                attractionMetaCache.refreshNameAsync(e.attractionId());
+            }
+            items.add(new QueueStatusItem(
+                    e.attractionId(),
+                    meta != null ? meta.displayName() : "attraction-" + e.attractionId(),
+                    e.ticketType().name(),
+                    e.status().name(),
+                    position,
+                    meta != null
+                            ? calcEstimatedMinutes(position, meta.capacity(e.ticketType()), meta.cyclingTimeSeconds())
+                            : 0,
+                    e.deferCount()
+            ));
+        }
 
         return new QueueStatusResponse(userId, items);
     }
@@ -161,35 +210,39 @@ public class QueueService {
             throw new QueueException(ErrorCode.FORBIDDEN);
         }
 
-        AttractionQueue queue = findActive(userId, attractionId);
+        UserQueueIndex.Entry entry = findActiveEntry(userId, attractionId);
 
-        if (queue.getDeferCount() >= maxDeferCount) {
+        if (entry.deferCount() >= maxDeferCount) {
             throw new QueueException(ErrorCode.DEFER_LIMIT_EXCEEDED);
         }
 
-        String queueKey = String.format(QUEUE_KEY, attractionId, queue.getTicketType().name());
-        String metaKey = String.format(META_KEY, attractionId);
+        TicketType ticketType = entry.ticketType();
+        Long attractionQueueId = entry.attractionQueueId();
+        int deferCount = entry.deferCount() + 1;
+        String queueKey = String.format(QUEUE_KEY, attractionId, ticketType.name());
 
-        int capacity = getCapacity(metaKey, queue.getTicketType());
-        int newPosition = moveBackByCycles(queueKey, userId, capacity, deferCycles);
+        int capacity = getCapacity(attractionId, ticketType);
+        int newPosition = moveBackByCycles(queueKey, userId, capacity, deferCycles, new UserQueueIndex.Entry(
+                attractionId, QueueStatus.WAITING, ticketType, attractionQueueId, deferCount));
         int newEstimatedCycleNumber = calcEstimatedCycleNumber(
-                attractionId, metaKey, queue.getTicketType(), Math.max(newPosition - 1, 0));
+                attractionId, capacity, Math.max(newPosition - 1, 0));
         Long newAttractionCycleId = resolveAttractionCycleId(attractionId, newEstimatedCycleNumber);
 
-        queue.setStatus(QueueStatus.WAITING);
-        queue.setDeferCount(queue.getDeferCount() + 1);
-        queue.setAttractionCycleId(newAttractionCycleId);
-        repository.save(queue);
+        if (!queuePersistence.applyDefer(attractionQueueId, ACTIVE, newAttractionCycleId, deferCount)) {
+            // 인덱스가 DB 보다 앞서 있던 경우: 인덱스/ZSET 을 정리하고 없는 대기열로 응답
+            queueRedisScripts.leave(queueKey, userQueueIndex.key(userId), userId, attractionId);
+            throw new QueueException(ErrorCode.QUEUE_NOT_FOUND);
+        }
 
-        int estimated   = calcEstimatedMinutes(metaKey, queue.getTicketType(), newPosition);
-        redisTemplate.delete(String.format(ALMOST_READY_NOTIFIED_KEY, queue.getAttractionQueueId()));
+        int estimated   = calcEstimatedMinutes(attractionId, ticketType, newPosition);
+        redisTemplate.delete(String.format(ALMOST_READY_NOTIFIED_KEY, attractionQueueId));
 
         log.info("deferred userId={} attractionId={} deferCount={} cycles={} newCycleId={} newPosition={} newCycleNumber={}",
-                userId, attractionId, queue.getDeferCount(), deferCycles, newAttractionCycleId, newPosition, newEstimatedCycleNumber);
+                userId, attractionId, deferCount, deferCycles, newAttractionCycleId, newPosition, newEstimatedCycleNumber);
 
         publishUserStatusEvent(userId);
 
-        return new DeferResponse(attractionId, newPosition, queue.getDeferCount(), maxDeferCount, deferCycles, estimated);
+        return new DeferResponse(attractionId, newPosition, deferCount, maxDeferCount, deferCycles, estimated);
     }
 
     // ── 대기열 취소 ───────────────────────────────────────────────────────────
@@ -199,18 +252,15 @@ public class QueueService {
             throw new QueueException(ErrorCode.FORBIDDEN);
         }
 
-        AttractionQueue queue = findActive(userId, attractionId);
+        UserQueueIndex.Entry entry = findActiveEntry(userId, attractionId);
 
-        if (queue.getStatus() == QueueStatus.COMPLETED) {
-            throw new QueueException(ErrorCode.QUEUE_ALREADY_COMPLETED);
+        String queueKey = String.format(QUEUE_KEY, attractionId, entry.ticketType().name());
+        boolean updated = queuePersistence.transition(entry.attractionQueueId(), ACTIVE, QueueStatus.CANCELED);
+        queueRedisScripts.leave(queueKey, userQueueIndex.key(userId), userId, attractionId);
+        if (!updated) {
+            throw new QueueException(ErrorCode.QUEUE_NOT_FOUND);
         }
 
-        String queueKey = String.format(QUEUE_KEY, attractionId, queue.getTicketType().name());
-        redisTemplate.opsForZSet().remove(queueKey, userId.toString());
-
-        queue.setStatus(QueueStatus.CANCELED);
-        repository.save(queue);
-
         publishUserStatusEvent(userId);
 
         return new CancelResponse("대기열 취소 완료", attractionId);
@@ -230,40 +280,42 @@ public class QueueService {
             throw new QueueException(ErrorCode.FORBIDDEN);
         }
 
-        AttractionQueue queue = repository
-                .findByUserIdAndAttractionIdAndStatusIn(userId, attractionId, ACTIVE)
-                .orElseGet(() -> repository
-                        .findFirstByUserIdAndAttractionIdAndStatusOrderByUpdatedAtDesc(
-                                userId, attractionId, QueueStatus.COMPLETED)
-                        .orElseThrow(() -> new QueueException(ErrorCode.QUEUE_NOT_FOUND)));
-
-        if (queue.getStatus() == QueueStatus.COMPLETED) {
-            throw new QueueException(ErrorCode.QUEUE_ALREADY_COMPLETED);
+        UserQueueIndex.Entry entry = userQueueIndex.get(userId, attractionId);
+        if (entry == null) {
+            // 인덱스에 없으면 활성 대기열이 아니다. 이미 탑승했는지만 DB 로 구분한다.
+            boolean completed = repository.findFirstByUserIdAndAttractionIdAndStatusOrderByUpdatedAtDesc(
+                    userId, attractionId, QueueStatus.COMPLETED).isPresent();
+            throw new QueueException(completed ? ErrorCode.QUEUE_ALREADY_COMPLETED : ErrorCode.QUEUE_NOT_FOUND);
         }
 
-        if (queue.getStatus() != QueueStatus.AVAILABLE) {
+        if (entry.status() != QueueStatus.AVAILABLE) {
             throw new QueueException(ErrorCode.QUEUE_STATUS_NOT_AVAILABLE);
         }
 
-        queue.setStatus(QueueStatus.COMPLETED);
-        repository.save(queue);
+        entry = findActiveEntry(userId, attractionId);
+        if (!queuePersistence.transition(entry.attractionQueueId(), List.of(QueueStatus.AVAILABLE),
+                QueueStatus.COMPLETED)) {
+            throw new QueueException(ErrorCode.QUEUE_STATUS_NOT_AVAILABLE);
+        }
+        queueRedisScripts.leave(String.format(QUEUE_KEY, attractionId, entry.ticketType().name()),
+                userQueueIndex.key(userId), userId, attractionId);
 
-        log.info("completed userId={} attractionId={} cycleId={}",
-                userId, attractionId, queue.getAttractionCycleId());
+        log.info("completed userId={} attractionId={} attractionQueueId={}",
+                userId, attractionId, entry.attractionQueueId());
 
         publishUserStatusEvent(userId);
 
         // fire-and-forget: 사용자 단위 단체사진 매칭 트리거.
         // 회차 컬럼은 참조하지 않고 (userId, attractionId)만으로 ai-server에 위임한다.
-        attractionClient.requestUserPhotoMatch(userId, attractionId);
+        // 요청 스레드는 batcher 큐에 넣기만 하고, 전송은 놀이기구별로 묶어 백그라운드에서 한다.
+        photoMatchBatcher.submit(userId, attractionId);
 
         return new CompleteResponse("탑승 완료", attractionId);
     }
 
     public void publishUserStatusEvent(Long userId) {
         try {
-            QueueStatusResponse status = getStatus(userId, userId);
-            kafkaTemplate.send(TOPIC_USER_STATUS, userId.toString(), objectMapper.writeValueAsString(status));
+            userStatusPublisher.publish(getStatus(userId, userId));
         } catch (Exception e) {
             log.warn("queue-user-status-event send error userId={}: {}", userId, e.getMessage());
         }
@@ -275,59 +327,40 @@ public class QueueService {
                 .orElseThrow(() -> new QueueException(ErrorCode.QUEUE_NOT_FOUND));
     }
 
-    private int getPosition(String queueKey, Long userId) {
-        Long rank = redisTemplate.opsForZSet().rank(queueKey, userId.toString());
-        return rank == null ? 0 : (int) (rank + 1);
-    }
-
-    private int moveBackByCycles(String queueKey, Long userId, int capacity, int cycles) {
-        String member = userId.toString();
-        Long currentRankObj = redisTemplate.opsForZSet().rank(queueKey, member);
-        int currentRank = currentRankObj == null ? -1 : currentRankObj.intValue();
-
-        redisTemplate.opsForZSet().remove(queueKey, member);
+    // 사용자 인덱스에서 활성 대기열을 찾는다. 등록 직후라 행 ID 가 아직 인덱스에 없을 때만 DB 로 보완한다.
+    private UserQueueIndex.Entry findActiveEntry(Long userId, Long attractionId) {
+        UserQueueIndex.Entry entry = userQueueIndex.get(userId, attractionId);
+        if (entry == null) {
+            throw new QueueException(ErrorCode.QUEUE_NOT_FOUND);
+        }
+        if (entry.attractionQueueId() != null) return entry;
 
-        Set<String> currentMembers = redisTemplate.opsForZSet().range(queueKey, 0, -1);
-        List<String> orderedMembers = new ArrayList<>(currentMembers == null ? List.of() : currentMembers);
+        AttractionQueue queue = findActive(userId, attractionId);
+        return new UserQueueIndex.Entry(attractionId, entry.status(), entry.ticketType(),
+                queue.getAttractionQueueId(), entry.deferCount());
+    }
 
+    private int moveBackByCycles(String queueKey, Long userId, int capacity, int cycles,
+                                 UserQueueIndex.Entry deferred) {
         int shift = Math.max(capacity, 1) * Math.max(cycles, 1);
-        int targetIndex = Math.min(Math.max(currentRank, -1) + shift, orderedMembers.size());
-        if (targetIndex < 0) targetIndex = 0;
-
-        orderedMembers.add(targetIndex, member);
-
-        long baseScore = System.currentTimeMillis();
-        for (int i = 0; i < orderedMembers.size(); i++) {
-            redisTemplate.opsForZSet().add(queueKey, orderedMembers.get(i), baseScore + i);
-        }
+        return queueRedisScripts.deferByShift(queueKey, userQueueIndex.key(userId), userId, shift,
+                deferred.attractionId(), deferred.encode());
+    }
 
-        return targetIndex + 1;
+    private int getCapacity(Long attractionId, TicketType ticketType) {
+        AttractionMeta meta = attractionMetaCache.get(attractionId);
+        return meta != null ? Math.max(meta.capacity(ticketType), 1) : 1;
     }
 
-    private int getCapacity(String metaKey, TicketType ticketType) {
-        try {
-            Object capacityObj = redisTemplate.opsForHash().get(metaKey,
-                    ticketType == TicketType.PREMIUM ? "capacityPremium" : "capacityBasic");
-            if (capacityObj == null) return 1;
-            return Math.max(Integer.parseInt(capacityObj.toString()), 1);
-        } catch (Exception e) {
-            return 1;
-        }
+    private int calcEstimatedMinutes(Long attractionId, TicketType ticketType, int position) {
+        AttractionMeta meta = attractionMetaCache.get(attractionId);
+        if (meta == null) return 0;
+        return calcEstimatedMinutes(position, meta.capacity(ticketType), meta.cyclingTimeSeconds());
     }
 
-    private int calcEstimatedMinutes(String metaKey, TicketType ticketType, int position) {
-        try {
-            Object cycleSecsObj = redisTemplate.opsForHash().get(metaKey, "cyclingTimeSeconds");
-            Object capacityObj  = redisTemplate.opsForHash().get(metaKey,
-                    ticketType == TicketType.PREMIUM ? "capacityPremium" : "capacityBasic");
-            if (cycleSecsObj == null || capacityObj == null) return 0;
-            int cycleSecs = Integer.parseInt(cycleSecsObj.toString());
-            int capacity  = Integer.parseInt(capacityObj.toString());
-            if (capacity <= 0) return 0;
-            return (int) Math.ceil((double) position / capacity * cycleSecs / 60.0);
-        } catch (Exception e) {
-            return 0;
-        }
+    static int calcEstimatedMinutes(int position, int capacity, int cycleSecs) {
+        if (capacity <= 0) return 0;
+        return (int) Math.ceil((double) position / capacity * cycleSecs / 60.0);
     }
 
     private TicketType parseTicketType(String value) {
@@ -341,41 +374,100 @@ public class QueueService {
     private Long resolveAttractionCycleId(Long attractionId, int estimatedCycleNumber) {
         if (estimatedCycleNumber <= 0) return null;
         try {
-            AttractionCycleInfo cycle = attractionClient.getCycleByNumber(
-                    attractionId, java.time.LocalDate.now().toString(), estimatedCycleNumber);
-            return cycle != null ? cycle.getAttractionCycleId() : null;
+            return attractionCycleCache.cycleId(attractionId, estimatedCycleNumber);
         } catch (Exception e) {
             log.warn("Failed to resolve attractionCycleId for attraction {} cycle {}", attractionId, estimatedCycleNumber);
             return null;
         }
     }
 
-    private int calcEstimatedCycleNumber(Long attractionId, String metaKey, TicketType ticketType, int queueSizeBefore) {
+    private int calcEstimatedCycleNumber(Long attractionId, int capacity, int queueSizeBefore) {
         try {
-            AttractionCycleInfo currentCycle = attractionClient.getCurrentCycle(attractionId);
-            if (currentCycle == null || currentCycle.getCycleNumber() == null) return 0;
+            AttractionMeta meta = attractionMetaCache.get(attractionId);
+            if (meta == null) return 0;
+            return estimatedCycleNumber(
+                    attractionCycleCache.currentCycleNumber(attractionId, meta.cyclingTimeSeconds()),
+                    capacity, queueSizeBefore);
+        } catch (Exception e) {
+            log.warn("Failed to calculate estimated cycle for attraction {}: {}", attractionId, e.getMessage());
+            return 0;
+        }
+    }
 
-            Object capacityObj = redisTemplate.opsForHash().get(metaKey,
-                    ticketType == TicketType.PREMIUM ? "capacityPremium" : "capacityBasic");
-            if (capacityObj == null) return currentCycle.getCycleNumber();
+    private static int estimatedCycleNumber(Integer currentCycleNumber, int capacity, int queueSizeBefore) {
+        if (currentCycleNumber == null) return 0;
+        if (capacity <= 0) return currentCycleNumber;
 
-            int capacity = Integer.parseInt(capacityObj.toString());
-            if (capacity <= 0) return currentCycle.getCycleNumber();
+        int cyclesAway = queueSizeBefore / capacity;
+        return currentCycleNumber + cyclesAway;
+    }
 
-            int cyclesAway = queueSizeBefore / capacity;
-            return currentCycle.getCycleNumber() + cyclesAway;
+    private AttractionLookup lookupAttraction(Long attractionId) {
+        AttractionMeta meta = attractionMetaCache.getOrFetch(attractionId);
+        if (meta == null) return new AttractionLookup(null, null);
+        Integer currentCycleNumber = null;
+        try {
+            currentCycleNumber = attractionCycleCache.currentCycleNumber(attractionId, meta.cyclingTimeSeconds());
         } catch (Exception e) {
-            log.warn("Failed to calculate estimated cycle for attraction {}: {}", attractionId, e.getMessage());
-            return 0;
+            log.warn("Failed to resolve current cycle for attraction {}: {}", attractionId, e.getMessage());
         }
+        return new AttractionLookup(meta, currentCycleNumber);
     }
 
-    private String getAttractionName(Long attractionId) {
-        String metaKey = String.format(META_KEY, attractionId);
-        Object cached = redisTemplate.opsForHash().get(metaKey, "attractionName");
-        if (cached != null) return cached.toString();
-        AttractionResponse attraction = attractionClient.getAttraction(attractionId);
-        return attraction != null ? attraction.getAttractionName() : "attraction-" + attractionId;
+    private static AttractionLookup awaitLookup(Future<AttractionLookup> lookup) {
+        try {
+            return lookup.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookup.cancel(true);
+            throw new IllegalStateException("interrupted while waiting for attraction lookup", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        }
+    }
+
+    // 회차 ID 조회는 응답 경로에서 빼고, 커밋이 끝난 뒤 가상 스레드에서 확정해 채운다.
+    private void assignCycleIdAfterCommit(Long attractionQueueId, Long attractionId, int estimatedCycleNumber) {
+        if (estimatedCycleNumber <= 0) return;
+        Runnable assign = () -> {
+            Long cycleId = resolveAttractionCycleId(attractionId, estimatedCycleNumber);
+            if (cycleId != null) {
+                queuePersistence.assignCycleIdIfUnset(attractionQueueId, QueueStatus.WAITING, cycleId);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lookupExecutor.execute(assign);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lookupExecutor.execute(assign);
+            }
+        });
+    }
+
+    private record AttractionLookup(AttractionMeta meta, Integer currentCycleNumber) {}
+
+    // DB 저장이 롤백되면 방금 기록한 사용자 인덱스 필드와 (새로 추가한 경우) ZSET member 도 제거해
+    // Redis/DB 불일치를 막는다.
+    private void removeOnRollback(String queueKey, Long userId, Long attractionId, boolean added) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) return;
+                if (added) {
+                    queueRedisScripts.leave(queueKey, userQueueIndex.key(userId), userId, attractionId);
+                } else {
+                    userQueueIndex.remove(userId, attractionId);
+                }
+            }
+        });
+    }
+
+    private String capacityField(TicketType ticketType) {
+        return ticketType == TicketType.PREMIUM ? "capacityPremium" : "capacityBasic";
     }
 
     // ── 놀이기구 대기 정보 조회 (attraction-server용) ────────────────────────
@@ -384,13 +476,13 @@ public class QueueService {
         String queueKeyPremium = String.format(QUEUE_KEY, attractionId, TicketType.PREMIUM.name());
         Long premiumQueueSize = redisTemplate.opsForZSet().size(queueKeyPremium);
         int premiumCount = premiumQueueSize != null ? premiumQueueSize.intValue() : 0;
-        int premiumMinutes = calcEstimatedMinutes(getMetaKey(attractionId), TicketType.PREMIUM, premiumCount);
+        int premiumMinutes = calcEstimatedMinutes(attractionId, TicketType.PREMIUM, premiumCount);
 
         // BASIC 대기열
         String queueKeyBasic = String.format(QUEUE_KEY, attractionId, TicketType.BASIC.name());
         Long basicQueueSize = redisTemplate.opsForZSet().size(queueKeyBasic);
         int basicCount = basicQueueSize != null ? basicQueueSize.intValue() : 0;
-        int basicMinutes = calcEstimatedMinutes(getMetaKey(attractionId), TicketType.BASIC, basicCount);
+        int basicMinutes = calcEstimatedMinutes(attractionId, TicketType.BASIC, basicCount);
 
         log.info("waiting info attractionId={} premium=(count={}, minutes={}) basic=(count={}, minutes={})",
                 attractionId, premiumCount, premiumMinutes, basicCount, basicMinutes);
@@ -2,9 +2,12 @@ package com.skala.queue_server.service;
 
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+// attraction-meta-event 를 구독하면 메타는 토픽에서 받으므로 고정 값으로 등록하지 않는다.
 @Component
+@ConditionalOnProperty(name = "queue.attraction-events.enabled", havingValue = "false", matchIfMissing = true)
 @RequiredArgsConstructor
 public class RideMetaInitializer {
 
@@ -0,0 +1,266 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.dto.ActiveQueueRow;
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import com.skala.queue_server.redis.QueueRedisScripts;
+import com.skala.queue_server.repository.AttractionQueueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 사용자별 활성 대기열 인덱스 (queue:user:{userId} 해시).
+ *
+ * 필드는 attractionId, 값은 "status|ticketType|attractionQueueId|deferCount" 이며,
+ * 등록/미루기/취소/탑승 완료는 대기열 ZSET 과 같은 Lua 스크립트 안에서 함께 갱신한다.
+ * 중복 등록 확인과 상태 조회는 이 인덱스만 읽고, MariaDB 는 영속 쓰기에만 쓴다.
+ * Redis 가 비워진 경우(최초 배포, 재시작, 페일오버) 준비 표시(queue:user_index:ready)도 함께 사라지므로,
+ * 기동 시와 주기 점검에서 이를 감지해 DB 의 활성 행으로 다시 채운다. 준비 표시가 없는 동안에는
+ * 인덱스에 없는 항목을 DB 에서 읽어 중복 등록 허용/조회 누락이 생기지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserQueueIndex {
+
+    private static final String USER_INDEX_KEY = "queue:user:%d";
+    private static final String READY_KEY      = "queue:user_index:ready";
+    private static final String REBUILD_LOCK   = "queue:user_index:rebuild_lock";
+    private static final List<QueueStatus> ACTIVE = List.of(QueueStatus.WAITING, QueueStatus.AVAILABLE);
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueRedisScripts queueRedisScripts;
+    private final AttractionQueueRepository repository;
+
+    // 준비 표시를 마지막으로 확인한 결과. false 인 동안 조회는 DB 로 보완한다.
+    private volatile boolean ready;
+
+    public String key(Long userId) {
+        return String.format(USER_INDEX_KEY, userId);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ── 조회 ─────────────────────────────────────────────────────────────────
+    public List<Entry> entries(Long userId) {
+        Map<Object, Object> raw = redisTemplate.opsForHash().entries(key(userId));
+        if (raw == null || raw.isEmpty()) {
+            return ready ? List.of() : fromDb(List.of(userId), null).getOrDefault(userId, List.of());
+        }
+        List<Entry> entries = new ArrayList<>(raw.size());
+        raw.forEach((field, value) -> {
+            Entry entry = Entry.decode(Long.parseLong(field.toString()), value.toString());
+            if (entry != null) entries.add(entry);
+        });
+        if (!ready) {
+            // 재구성 전에 새로 등록한 항목만 인덱스에 있을 수 있으므로 나머지 놀이기구는 DB 에서 채운다.
+            fromDb(List.of(userId), null).getOrDefault(userId, List.of()).stream()
+                    .filter(row -> !raw.containsKey(row.attractionId().toString()))
+                    .forEach(entries::add);
+        }
+        entries.sort((a, b) -> Long.compare(a.attractionId(), b.attractionId()));
+        return entries;
+    }
+
+    public Entry get(Long userId, Long attractionId) {
+        Object value = redisTemplate.opsForHash().get(key(userId), attractionId.toString());
+        if (value != null) return Entry.decode(attractionId, value.toString());
+        if (ready) return null;
+        List<Entry> fallback = fromDb(List.of(userId), attractionId).get(userId);
+        return fallback == null ? null : fallback.get(0);
+    }
+
+    // 여러 사용자의 같은 놀이기구 항목을 한 번의 파이프라인으로 조회 (인덱스에 없는 사용자는 빠진다)
+    public Map<Long, Entry> get(Collection<Long> userIds, Long attractionId) {
+        if (userIds.isEmpty()) return Map.of();
+        List<Long> ordered = List.copyOf(userIds);
+        String field = attractionId.toString();
+        List<Object> values = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long userId : ordered) {
+                    ops.opsForHash().get(key(userId), field);
+                }
+                return null;
+            }
+        });
+
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Object value = values.get(i);
+            Entry entry = value == null ? null : Entry.decode(attractionId, value.toString());
+            if (entry != null) entries.put(ordered.get(i), entry);
+        }
+        if (!ready && entries.size() < ordered.size()) {
+            List<Long> missing = ordered.stream().filter(id -> !entries.containsKey(id)).toList();
+            fromDb(missing, attractionId).forEach((userId, rows) -> entries.put(userId, rows.get(0)));
+        }
+        return entries;
+    }
+
+    // 여러 사용자의 전체 항목을 한 번의 파이프라인으로 조회 (준비 전에는 인덱스가 빈 사용자를 DB 로 채운다)
+    public Map<Long, List<Entry>> entries(Collection<Long> userIds) {
+        if (userIds.isEmpty()) return Map.of();
+        List<Long> ordered = List.copyOf(userIds);
+        List<Object> values = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Long userId : ordered) {
+                    ops.opsForHash().entries(key(userId));
+                }
+                return null;
+            }
+        });
+
+        Map<Long, List<Entry>> entries = new LinkedHashMap<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            if (!(values.get(i) instanceof Map<?, ?> raw) || raw.isEmpty()) continue;
+            List<Entry> list = new ArrayList<>(raw.size());
+            raw.forEach((field, value) -> {
+                Entry entry = Entry.decode(Long.parseLong(field.toString()), value.toString());
+                if (entry != null) list.add(entry);
+            });
+            list.sort((a, b) -> Long.compare(a.attractionId(), b.attractionId()));
+            entries.put(ordered.get(i), list);
+        }
+        if (!ready && entries.size() < ordered.size()) {
+            List<Long> missing = ordered.stream().filter(id -> !entries.containsKey(id)).toList();
+            entries.putAll(fromDb(missing, null));
+        }
+        return entries;
+    }
+
+    // ── 갱신 (스크립트 밖에서 필요한 경우) ─────────────────────────────────────
+    public void put(Long userId, Entry entry) {
+        redisTemplate.opsForHash().put(key(userId), entry.attractionId().toString(), entry.encode());
+    }
+
+    public void remove(Long userId, Long attractionId) {
+        redisTemplate.opsForHash().delete(key(userId), attractionId.toString());
+    }
+
+    // 상태와 attractionQueueId 가 그대로일 때만 지운다. 이미 없는 필드도 지운 것으로 본다.
+    public boolean removeIfMatches(Long userId, Long attractionId, QueueStatus status, Long attractionQueueId) {
+        return queueRedisScripts.deleteUserEntryIfMatches(
+                key(userId), attractionId, status.name(), attractionQueueId) != 0L;
+    }
+
+    // 인덱스에 남아 있는 사용자만 상태를 바꾼다 (status 가 null 이면 삭제).
+    public void setStatus(Collection<Long> userIds, Long attractionId, QueueStatus status) {
+        if (userIds.isEmpty()) return;
+        List<String> keys = userIds.stream().map(this::key).toList();
+        queueRedisScripts.setUserStatus(keys, attractionId, status == null ? null : status.name());
+    }
+
+    // ── 재구성: 기동 시와 주기 점검에서 준비 표시가 없으면 한 레플리카만 DB 활성 행으로 채운다 ──
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfMissing() {
+        boolean present = Boolean.TRUE.equals(redisTemplate.hasKey(READY_KEY));
+        if (ready && !present) {
+            log.warn("user queue index ready marker missing, falling back to DB until rebuilt");
+        }
+        ready = present;
+        if (present) return;
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK, "1", Duration.ofMinutes(5));
+        if (!Boolean.TRUE.equals(locked)) return;
+
+        try {
+            List<ActiveQueueRow> rows = repository.findActiveRowsByStatusIn(ACTIVE);
+            for (int from = 0; from < rows.size(); from += REBUILD_CHUNK) {
+                List<ActiveQueueRow> chunk = rows.subList(from, Math.min(from + REBUILD_CHUNK, rows.size()));
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                        for (ActiveQueueRow row : chunk) {
+                            // 재구성 중에 들어온 실시간 갱신이 이기도록 HSETNX
+                            ops.opsForHash().putIfAbsent(key(row.getUserId()), row.getAttractionId().toString(),
+                                    new Entry(row.getAttractionId(), row.getStatus(), row.getTicketType(),
+                                            row.getAttractionQueueId(), row.getDeferCount()).encode());
+                        }
+                        return null;
+                    }
+                });
+            }
+            redisTemplate.opsForValue().set(READY_KEY, String.valueOf(System.currentTimeMillis()));
+            ready = true;
+            log.info("rebuilt user queue index rows={}", rows.size());
+        } catch (Exception e) {
+            log.error("user queue index rebuild failed", e);
+        } finally {
+            redisTemplate.delete(REBUILD_LOCK);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${queue.user-index.check-interval-ms:5000}")
+    public void checkReady() {
+        try {
+            rebuildIfMissing();
+        } catch (Exception e) {
+            ready = false;
+            log.warn("user queue index check failed: {}", e.getMessage());
+        }
+    }
+
+    // 준비 전 대체 조회: 사용자별 활성 행 (attractionId 가 있으면 그 놀이기구만)
+    private Map<Long, List<Entry>> fromDb(List<Long> userIds, Long attractionId) {
+        Map<Long, List<Entry>> entries = new LinkedHashMap<>();
+        for (ActiveQueueRow row : repository.findActiveRowsByUserIdIn(userIds, ACTIVE)) {
+            if (attractionId != null && !attractionId.equals(row.getAttractionId())) continue;
+            entries.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(new Entry(
+                    row.getAttractionId(), row.getStatus(), row.getTicketType(),
+                    row.getAttractionQueueId(), row.getDeferCount()));
+        }
+        entries.values().forEach(list -> list.sort((a, b) -> Long.compare(a.attractionId(), b.attractionId())));
+        return entries;
+    }
+
+    /**
+     * @param attractionQueueId DB 저장 전(등록 직후)에는 null
+     */
+    public record Entry(Long attractionId, QueueStatus status, TicketType ticketType,
+                        Long attractionQueueId, int deferCount) {
+
+        public String encode() {
+            return status.name() + "|" + ticketType.name() + "|"
+                    + (attractionQueueId == null ? "" : attractionQueueId) + "|" + deferCount;
+        }
+
+        static Entry decode(Long attractionId, String value) {
+            String[] parts = value.split("\\|", -1);
+            if (parts.length < 4) return null;
+            try {
+                return new Entry(
+                        attractionId,
+                        QueueStatus.valueOf(parts[0]),
+                        TicketType.valueOf(parts[1]),
+                        parts[2].isEmpty() ? null : Long.parseLong(parts[2]),
+                        Integer.parseInt(parts[3]));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
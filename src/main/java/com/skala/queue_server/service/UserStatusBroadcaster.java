@@ -0,0 +1,186 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.dto.ActiveQueueRow;
+import com.skala.queue_server.dto.AttractionMeta;
+import com.skala.queue_server.dto.QueueStatusItem;
+import com.skala.queue_server.dto.QueueStatusResponse;
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import com.skala.queue_server.repository.AttractionQueueRepository;
+import com.skala.queue_server.util.LongIntHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 활성 사용자 전체의 대기 순번/시간 브로드캐스트.
+ *
+ * 사용자마다 getStatus 를 다시 실행하는 대신, 놀이기구 대기열 ZSET 을 rank 구간 단위로 한 번씩 훑어
+ * userId → 순번 맵을 만든다. 활성 사용자는 전체를 한 번에 읽지 않고 userId keyset 으로 send-chunk 명씩 읽고,
+ * 그 사용자들의 활성 행만 projection 으로 조회해 묶으므로 주기마다 메모리에 올라가는 행 수가 chunk 크기로 제한된다.
+ * write-behind 모드에서는 DB 가 저널보다 늦으므로, DB 는 대상 사용자 목록으로만 쓰고 항목(상태/등급/미루기 횟수)은
+ * ZSET 과 같은 스크립트에서 갱신되는 사용자 인덱스에서 chunk 단위 파이프라인으로 읽는다. 인덱스가 빈 사용자(이미 모든
+ * 대기열을 떠남)는 건너뛰고, 아직 DB 에 반영되지 않은 신규 사용자는 반영된 다음 주기부터 포함된다.
+ * 이벤트는 chunk 단위로 UserStatusPublisher 에 넘겨 변경된 사용자에게만 보낸다. 발행은 상태 전이 이벤트와 같은
+ * QueueEventPublisher 경로(outbox 배치 INSERT)를 거치므로 브로커가 느려도 브로드캐스트 스레드가 기다리지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatusBroadcaster {
+
+    private static final String ACTIVE_ATTRACTIONS_KEY = "attraction:active_ids";
+    private static final String USER_STATUS_BROADCAST_LOCK_KEY = "queue:user_status:broadcast_lock";
+    private static final List<QueueStatus> ACTIVE   = List.of(QueueStatus.WAITING, QueueStatus.AVAILABLE);
+
+    @Value("${queue.user-status.broadcast-interval-ms:10000}")
+    private long userStatusBroadcastIntervalMs;
+
+    @Value("${queue.user-status.broadcast-rank-chunk:1000}")
+    private int rankChunkSize;
+
+    @Value("${queue.user-status.broadcast-send-chunk:500}")
+    private int sendChunkSize;
+
+    private final AttractionQueueRepository repository;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueService queueService;
+    private final AttractionMetaCache attractionMetaCache;
+    private final UserStatusPublisher userStatusPublisher;
+    private final UserQueueIndex userQueueIndex;
+    private final QueueJournal queueJournal;
+
+    // ── 개인 대기 순번/시간 브로드캐스트 ─────────────────────────────────────
+    @Scheduled(fixedDelayString = "${queue.user-status.broadcast-interval-ms:10000}")
+    public void broadcastActiveUserStatuses() {
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(
+                USER_STATUS_BROADCAST_LOCK_KEY,
+                String.valueOf(System.currentTimeMillis()),
+                Duration.ofMillis(Math.max(userStatusBroadcastIntervalMs - 500, 1000))
+        );
+        if (!Boolean.TRUE.equals(locked)) return;
+
+        Map<Long, AttractionSnapshot> snapshots = null;
+        Long afterUserId = 0L;
+        int users = 0;
+        while (true) {
+            List<Long> userIds = repository.findActiveUserIdsAfter(ACTIVE, afterUserId, PageRequest.of(0, sendChunkSize));
+            if (userIds.isEmpty()) break;
+            afterUserId = userIds.get(userIds.size() - 1);
+            if (snapshots == null) snapshots = loadSnapshots();
+
+            users += flush(userIds, snapshots);
+            if (userIds.size() < sendChunkSize) break;
+        }
+        if (users > 0) log.debug("broadcasted active queue statuses users={}", users);
+    }
+
+    // 변경된 사용자만 발행한다. write-behind 모드면 DB 행 대신 사용자 인덱스 항목으로 상태를 만든다.
+    private int flush(List<Long> userIds, Map<Long, AttractionSnapshot> snapshots) {
+        Map<Long, List<UserQueueIndex.Entry>> source = queueJournal.isEnabled()
+                ? userQueueIndex.entries(userIds)
+                : loadEntries(userIds);
+
+        List<QueueStatusResponse> statuses = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            List<UserQueueIndex.Entry> entries = source.get(userId);
+            if (entries == null || entries.isEmpty()) continue;
+            List<QueueStatusItem> items = new ArrayList<>(entries.size());
+            for (UserQueueIndex.Entry entry : entries) {
+                items.add(toItem(userId, entry, snapshots));
+            }
+            statuses.add(new QueueStatusResponse(userId, items));
+        }
+        userStatusPublisher.publishIfChanged(statuses);
+        return statuses.size();
+    }
+
+    private Map<Long, List<UserQueueIndex.Entry>> loadEntries(List<Long> userIds) {
+        Map<Long, List<UserQueueIndex.Entry>> entries = new HashMap<>(userIds.size() * 2);
+        for (ActiveQueueRow row : repository.findActiveRowsByUserIdIn(userIds, ACTIVE)) {
+            entries.computeIfAbsent(row.getUserId(), id -> new ArrayList<>(2)).add(new UserQueueIndex.Entry(
+                    row.getAttractionId(), row.getStatus(), row.getTicketType(),
+                    row.getAttractionQueueId(), row.getDeferCount()));
+        }
+        entries.values().forEach(list -> list.sort((a, b) -> Long.compare(a.attractionId(), b.attractionId())));
+        return entries;
+    }
+
+    private QueueStatusItem toItem(Long userId, UserQueueIndex.Entry entry, Map<Long, AttractionSnapshot> snapshots) {
+        AttractionSnapshot snapshot = snapshots.computeIfAbsent(entry.attractionId(), this::loadSnapshot);
+        int position = entry.status() == QueueStatus.AVAILABLE
+                ? 0
+                : snapshot.positions(entry.ticketType()).get(userId);
+        int estimated = QueueService.calcEstimatedMinutes(
+                position, snapshot.meta().capacity(entry.ticketType()), snapshot.meta().cyclingTimeSeconds());
+        return new QueueStatusItem(
+                entry.attractionId(),
+                snapshot.meta().displayName(),
+                entry.ticketType().name(),
+                entry.status().name(),
+                position,
+                estimated,
+                entry.deferCount()
+        );
+    }
+
+    private Map<Long, AttractionSnapshot> loadSnapshots() {
+        Map<Long, AttractionSnapshot> snapshots = new HashMap<>();
+        Set<String> attractionIds = redisTemplate.opsForSet().members(ACTIVE_ATTRACTIONS_KEY);
+        if (attractionIds == null) return snapshots;
+        for (String idStr : attractionIds) {
+            Long attractionId = Long.parseLong(idStr);
+            snapshots.put(attractionId, loadSnapshot(attractionId));
+        }
+        return snapshots;
+    }
+
+    // 놀이기구 하나당 메타는 near-cache 에서 읽고, 등급별 ZSET 을 rank 구간 단위로 한 번씩 훑는다.
+    private AttractionSnapshot loadSnapshot(Long attractionId) {
+        AttractionMeta meta = attractionMetaCache.get(attractionId);
+        if (meta == null) {
+            meta = new AttractionMeta(attractionId, 0, 0, 0, null);
+        }
+        if (meta.attractionName() == null) {
+            attractionMetaCache.refreshNameAsync(attractionId);
+        }
+
+        return new AttractionSnapshot(meta,
+                loadPositions(queueService.getQueueKey(attractionId, TicketType.PREMIUM)),
+                loadPositions(queueService.getQueueKey(attractionId, TicketType.BASIC)));
+    }
+
+    private LongIntHashMap loadPositions(String queueKey) {
+        Long size = redisTemplate.opsForZSet().size(queueKey);
+        LongIntHashMap positions = new LongIntHashMap(size == null ? 0 : size.intValue(), 0);
+        int rank = 0;
+        while (true) {
+            Set<String> members = redisTemplate.opsForZSet().range(queueKey, rank, rank + rankChunkSize - 1L);
+            if (members == null || members.isEmpty()) break;
+            for (String member : members) {
+                positions.put(Long.parseLong(member), ++rank);
+            }
+            if (members.size() < rankChunkSize) break;
+        }
+        return positions;
+    }
+
+    private record AttractionSnapshot(AttractionMeta meta,
+                                      LongIntHashMap premiumPositions, LongIntHashMap basicPositions) {
+
+        LongIntHashMap positions(TicketType ticketType) {
+            return ticketType == TicketType.PREMIUM ? premiumPositions : basicPositions;
+        }
+    }
+}
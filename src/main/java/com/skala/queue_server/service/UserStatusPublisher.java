@@ -0,0 +1,186 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.dto.QueueStatusItem;
+import com.skala.queue_server.dto.QueueStatusResponse;
+import com.skala.queue_server.event.QueueEventEncoder;
+import com.skala.queue_server.event.QueueEventPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * queue-user-status-event 발행기.
+ *
+ * 사용자별로 마지막으로 보낸 상태의 fingerprint(놀이기구별 순번/예상 시간/상태/미루기 횟수의 해시)와
+ * 발송 시각을 queue:user_status:fingerprint 해시에 남긴다. 브로드캐스트는 fingerprint 가 바뀌었거나
+ * heartbeat 간격이 지난 사용자에게만 이벤트를 보낸다. 레플리카 간에 공유되므로 어느 레플리카가
+ * 브로드캐스트하더라도 변경이 누락되지 않는다. 취소/탑승 완료/NO_SHOW 로 활성 대기열이 모두 없어진 사용자의
+ * 필드는 그 시점에 지우므로, 해시 크기는 활성 사용자 수를 넘지 않는다.
+ * 상태 전이 직후 이벤트와 주기적 브로드캐스트는 모두 QueueEventPublisher 한 경로로 보낸다. 경로가 둘이면
+ * 늦게 릴레이된 전이 이벤트가 그 뒤에 계산된 브로드캐스트를 덮어써 소비자가 이전 상태를 보게 되기 때문이다.
+ * 브로드캐스트는 chunk 마다 배치 INSERT 한 번으로 기록한다.
+ */
+@Slf4j
+@Component
+public class UserStatusPublisher {
+
+    private static final String TOPIC_USER_STATUS = "queue-user-status-event";
+    private static final String FINGERPRINT_KEY   = "queue:user_status:fingerprint";
+    private static final Duration FINGERPRINT_TTL = Duration.ofDays(1);
+
+    @Value("${queue.user-status.change-only:true}")
+    private boolean changeOnly;
+
+    @Value("${queue.user-status.heartbeat-interval-ms:60000}")
+    private long heartbeatIntervalMs;
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueEventPublisher queueEventPublisher;
+    private final QueueEventEncoder queueEventEncoder;
+    private final Counter sentCounter;
+    private final Counter suppressedCounter;
+
+    public UserStatusPublisher(RedisTemplate<String, String> redisTemplate,
+                               QueueEventPublisher queueEventPublisher,
+                               QueueEventEncoder queueEventEncoder,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.queueEventPublisher = queueEventPublisher;
+        this.queueEventEncoder = queueEventEncoder;
+        this.sentCounter = Counter.builder("queue.user_status.events")
+                .tag("result", "sent").register(meterRegistry);
+        this.suppressedCounter = Counter.builder("queue.user_status.events")
+                .tag("result", "suppressed").register(meterRegistry);
+    }
+
+    // ── 상태 전이 직후 발행: 항상 보내고 fingerprint 를 갱신 (대기열을 모두 떠났으면 필드 삭제) ──
+    public void publish(QueueStatusResponse status) {
+        if (!send(status)) return;
+        if (!changeOnly) return;
+        String field = status.getUserId().toString();
+        if (status.getQueues().isEmpty()) {
+            redisTemplate.opsForHash().delete(FINGERPRINT_KEY, field);
+        } else {
+            redisTemplate.opsForHash().put(FINGERPRINT_KEY, field, encode(fingerprint(status), System.currentTimeMillis()));
+        }
+    }
+
+    // ── 브로드캐스트: 변경되었거나 heartbeat 가 지난 사용자에게만 발행 ───────────
+    public void publishIfChanged(List<QueueStatusResponse> chunk) {
+        if (chunk.isEmpty()) return;
+        if (!changeOnly) {
+            sendAll(chunk);
+            return;
+        }
+
+        List<Object> userIds = new ArrayList<>(chunk.size());
+        for (QueueStatusResponse status : chunk) {
+            userIds.add(status.getUserId().toString());
+        }
+        List<Object> previous = redisTemplate.opsForHash().multiGet(FINGERPRINT_KEY, userIds);
+
+        long now = System.currentTimeMillis();
+        List<QueueStatusResponse> changed = new ArrayList<>();
+        List<Long> fingerprints = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            QueueStatusResponse status = chunk.get(i);
+            long fingerprint = fingerprint(status);
+            Object prev = previous.get(i);
+            if (prev != null && !isStale(prev.toString(), fingerprint, now)) {
+                suppressedCounter.increment();
+                continue;
+            }
+            changed.add(status);
+            fingerprints.add(fingerprint);
+        }
+
+        int sent = sendAll(changed);
+        Map<String, String> updated = new HashMap<>();
+        for (int i = 0; i < sent; i++) {
+            updated.put(changed.get(i).getUserId().toString(), encode(fingerprints.get(i), now));
+        }
+        if (!updated.isEmpty()) {
+            redisTemplate.opsForHash().putAll(FINGERPRINT_KEY, updated);
+            redisTemplate.expire(FINGERPRINT_KEY, FINGERPRINT_TTL);
+        }
+    }
+
+    private boolean send(QueueStatusResponse status) {
+        try {
+            queueEventPublisher.publish(TOPIC_USER_STATUS, status.getUserId().toString(),
+                    queueEventEncoder.encode(TOPIC_USER_STATUS, status));
+            sentCounter.increment();
+            return true;
+        } catch (Exception e) {
+            log.warn("queue-user-status-event send error userId={}: {}", status.getUserId(), e.getMessage());
+            return false;
+        }
+    }
+
+    // 앞에서부터 발행된 건수를 돌려준다 (그 뒤 사용자는 fingerprint 를 갱신하지 않아 다음 주기에 다시 보낸다).
+    private int sendAll(List<QueueStatusResponse> statuses) {
+        if (statuses.isEmpty()) return 0;
+        try {
+            List<QueueEventPublisher.Message> messages = new ArrayList<>(statuses.size());
+            for (QueueStatusResponse status : statuses) {
+                messages.add(new QueueEventPublisher.Message(status.getUserId().toString(),
+                        queueEventEncoder.encode(TOPIC_USER_STATUS, status)));
+            }
+            int sent = queueEventPublisher.publishAll(TOPIC_USER_STATUS, messages);
+            sentCounter.increment(sent);
+            return sent;
+        } catch (Exception e) {
+            log.warn("queue-user-status-event broadcast error users={}: {}", statuses.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private boolean isStale(String encoded, long fingerprint, long now) {
+        int sep = encoded.indexOf(':');
+        if (sep < 0) return true;
+        try {
+            long prevFingerprint = Long.parseLong(encoded.substring(0, sep));
+            long sentAt = Long.parseLong(encoded.substring(sep + 1));
+            return prevFingerprint != fingerprint || now - sentAt >= heartbeatIntervalMs;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static String encode(long fingerprint, long sentAt) {
+        return fingerprint + ":" + sentAt;
+    }
+
+    // 항목 순서와 무관하도록 항목별 해시를 더한다.
+    static long fingerprint(QueueStatusResponse status) {
+        long sum = status.getQueues().size();
+        for (QueueStatusItem item : status.getQueues()) {
+            long h = item.getAttractionId() == null ? 0 : item.getAttractionId();
+            h = h * 31 + (item.getTicketType() == null ? 0 : item.getTicketType().hashCode());
+            h = h * 31 + (item.getStatus() == null ? 0 : item.getStatus().hashCode());
+            h = h * 31 + item.getPosition();
+            h = h * 31 + item.getEstimatedMinutes();
+            h = h * 31 + item.getDeferCount();
+            sum += mix(h);
+        }
+        return sum;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,185 @@
+package com.skala.queue_server.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 가변 길이 레코드를 FIFO 로 담는 고정 크기 바이트 링.
+ *
+ * 레코드는 [int 길이][본문] 으로 이어 쓰고, 끝에 남은 공간이 모자라면 wrap 표시(-1)를 남기고 처음부터 쓴다.
+ * 힙 버퍼(메모리 링) 또는 memory-mapped 파일(spill) 위에서 동작하며, 파일 모드는 앞 HEADER_BYTES 에
+ * head / tail / used 를 기록해 재시작 후에도 남은 레코드를 이어 읽는다. 파일은 배타 잠금을 잡아
+ * 같은 호스트의 다른 프로세스가 같은 spill 파일을 열면 바로 실패한다.
+ * 동기화하지 않으므로 호출 쪽에서 잠금을 잡아야 한다.
+ */
+public class ByteRing implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 24;
+    private static final int WRAP = -1;
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private final int capacity;
+    private final FileChannel channel;
+
+    private int head;
+    private int tail;
+    private int used;
+
+    private ByteRing(ByteBuffer buffer, int base, FileChannel channel) {
+        this.buffer = buffer;
+        this.base = base;
+        this.capacity = buffer.capacity() - base;
+        this.channel = channel;
+    }
+
+    public static ByteRing inMemory(int capacityBytes) {
+        return new ByteRing(ByteBuffer.allocate(capacityBytes), 0, null);
+    }
+
+    // 파일이 이미 있으면 헤더가 유효할 때 남은 레코드를 그대로 이어받는다.
+    public static ByteRing mapped(Path path, int capacityBytes) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 같은 JVM 안에서 이미 연 경우
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("spill file is already in use by another process: " + path);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacityBytes);
+        ByteRing ring = new ByteRing(buffer, HEADER_BYTES, channel);
+        ring.loadHeader();
+        return ring;
+    }
+
+    public int usedBytes() {
+        return used;
+    }
+
+    public boolean isEmpty() {
+        return used == 0;
+    }
+
+    public boolean offer(byte[] record) {
+        int need = 4 + record.length;
+        if (need > capacity) return false;
+        if (used == 0) {
+            head = 0;
+            tail = 0;
+        }
+
+        if (used > 0 && tail <= head) {
+            // 이미 wrap 된 상태: head 앞까지만 쓸 수 있다.
+            if (need > head - tail) return false;
+        } else if (need > capacity - tail) {
+            // 끝에 자리가 없으면 처음으로 넘어간다 (남는 끝부분은 used 에 포함했다가 읽을 때 돌려받는다).
+            if (need > head) return false;
+            if (capacity - tail >= 4) buffer.putInt(base + tail, WRAP);
+            used += capacity - tail;
+            tail = 0;
+        }
+
+        buffer.putInt(base + tail, record.length);
+        buffer.put(base + tail + 4, record);
+        tail = (tail + need) % capacity;
+        used += need;
+        storeHeader();
+        return true;
+    }
+
+    // 가장 오래된 레코드를 꺼내지 않고 돌려준다. 비어 있으면 null.
+    public byte[] peek() {
+        if (used == 0) return null;
+        skipWrap();
+        int length = buffer.getInt(base + head);
+        byte[] record = new byte[length];
+        buffer.get(base + head + 4, record);
+        return record;
+    }
+
+    // 앞에서부터 최대 max 개를 꺼내지 않고 순서대로 돌려준다.
+    public List<byte[]> peek(int max) {
+        List<byte[]> records = new ArrayList<>();
+        int pos = head;
+        int remaining = used;
+        while (remaining > 0 && records.size() < max) {
+            if (capacity - pos < 4 || buffer.getInt(base + pos) == WRAP) {
+                remaining -= capacity - pos;
+                pos = 0;
+                continue;
+            }
+            int length = buffer.getInt(base + pos);
+            byte[] record = new byte[length];
+            buffer.get(base + pos + 4, record);
+            records.add(record);
+            pos = (pos + 4 + length) % capacity;
+            remaining -= 4 + length;
+        }
+        return records;
+    }
+
+    public void clear() {
+        head = 0;
+        tail = 0;
+        used = 0;
+        storeHeader();
+    }
+
+    public void pop() {
+        if (used == 0) return;
+        skipWrap();
+        int need = 4 + buffer.getInt(base + head);
+        head = (head + need) % capacity;
+        used -= need;
+        if (used == 0) {
+            head = 0;
+            tail = 0;
+        }
+        storeHeader();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer instanceof MappedByteBuffer mapped) mapped.force();
+        if (channel != null) channel.close();
+    }
+
+    private void skipWrap() {
+        if (capacity - head < 4 || buffer.getInt(base + head) == WRAP) {
+            used -= capacity - head;
+            head = 0;
+        }
+    }
+
+    private void storeHeader() {
+        if (base == 0) return;
+        buffer.putLong(0, head);
+        buffer.putLong(8, tail);
+        buffer.putLong(16, used);
+    }
+
+    private void loadHeader() {
+        long h = buffer.getLong(0);
+        long t = buffer.getLong(8);
+        long u = buffer.getLong(16);
+        boolean valid = h >= 0 && h < capacity && t >= 0 && t < capacity && u >= 0 && u <= capacity;
+        head = valid ? (int) h : 0;
+        tail = valid ? (int) t : 0;
+        used = valid ? (int) u : 0;
+        storeHeader();
+    }
+}
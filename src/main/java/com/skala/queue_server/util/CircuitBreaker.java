@@ -0,0 +1,122 @@
+package com.skala.queue_server.util;
+
+import java.util.Arrays;
+
+/**
+ * 호출 횟수 기반 슬라이딩 윈도우 서킷 브레이커.
+ *
+ * 최근 windowSize 번의 호출 중 실패 비율이 임계값을 넘으면 OPEN 으로 전환해 openMs 동안 호출을 즉시 거절하고,
+ * 이후 HALF_OPEN 에서 halfOpenPermits 번의 시험 호출이 모두 성공하면 CLOSED 로, 하나라도 실패하면 다시 OPEN 으로 돌아간다.
+ * 결과 없이 취소된 호출은 onCancel 로 알려 HALF_OPEN 시험 허가를 돌려받는다 (윈도우에는 기록하지 않음).
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final boolean[] window;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openMs;
+    private final int halfOpenPermits;
+
+    private State state = State.CLOSED;
+    private int cursor;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int halfOpenIssued;
+    private int halfOpenSucceeded;
+
+    public CircuitBreaker(String name, int windowSize, double failureRateThreshold,
+                          int minimumCalls, long openMs, int halfOpenPermits) {
+        if (windowSize <= 0) throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.openMs = openMs;
+        this.halfOpenPermits = Math.max(halfOpenPermits, 1);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) return false;
+            state = State.HALF_OPEN;
+            halfOpenIssued = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenIssued >= halfOpenPermits) return false;
+            halfOpenIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenPermits) {
+                reset();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    // 취소된 호출: 성공/실패로 세지 않고, HALF_OPEN 이면 발급했던 시험 허가만 반납한다.
+    public synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenIssued > 0) {
+            halfOpenIssued--;
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[cursor]) failures--;
+        } else {
+            recorded++;
+        }
+        window[cursor] = failed;
+        if (failed) failures++;
+        cursor = (cursor + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        cursor = 0;
+        recorded = 0;
+        failures = 0;
+        Arrays.fill(window, false);
+    }
+
+    public static class OpenException extends RuntimeException {
+
+        public OpenException(String name) {
+            super("circuit breaker open: " + name);
+        }
+    }
+}
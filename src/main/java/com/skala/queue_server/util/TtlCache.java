@@ -0,0 +1,92 @@
+package com.skala.queue_server.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 크기 제한이 있는 TTL 캐시.
+ *
+ * 같은 키에 대한 동시 미스는 로더 한 번으로 합쳐지며 (single-flight), 로더가 null 을 반환하거나
+ * cacheable 조건을 만족하지 않는 값은 저장하지 않는다. 크기를 넘으면 만료된 항목부터, 그래도 넘으면
+ * 임의의 항목부터 비운다.
+ */
+public class TtlCache<K, V> {
+
+    private final long ttlMs;
+    private final int maxSize;
+    private final Predicate<V> cacheable;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public TtlCache(long ttlMs, int maxSize, Predicate<V> cacheable) {
+        if (ttlMs <= 0) throw new IllegalArgumentException("ttlMs must be positive: " + ttlMs);
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+        this.cacheable = cacheable;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        Entry<V> entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null) {
+            if (entry.expiresAt > now) return entry.value;
+            entries.remove(key, entry);
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            V value = loader.apply(key);
+            if (value != null && cacheable.test(value)) {
+                put(key, value);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void put(K key, V value) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMs));
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(e -> e.expiresAt <= now);
+        Iterator<K> it = entries.keySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
@@ -0,0 +1,11 @@
+-- attraction_queue 행 ID 를 IDENTITY 대신 시퀀스로 발급한다.
+-- INCREMENT BY 50 은 엔티티의 allocationSize 와 같아야 하며, Hibernate pooled-lo 최적화기가
+-- NEXTVAL 한 번으로 [값, 값 + 49] 구간을 메모리에서 나눠 쓴다 (JDBC insert batching 가능).
+-- 시작값은 기존 행과 겹치지 않도록 현재 최대 ID + 1 로 잡는다.
+SET @attraction_queue_next_id = (SELECT COALESCE(MAX(attraction_queue_id), 0) + 1 FROM attraction_queue);
+SET @attraction_queue_seq_ddl = CONCAT(
+    'CREATE SEQUENCE IF NOT EXISTS attraction_queue_seq START WITH ', @attraction_queue_next_id,
+    ' INCREMENT BY 50');
+PREPARE attraction_queue_seq_stmt FROM @attraction_queue_seq_ddl;
+EXECUTE attraction_queue_seq_stmt;
+DEALLOCATE PREPARE attraction_queue_seq_stmt;
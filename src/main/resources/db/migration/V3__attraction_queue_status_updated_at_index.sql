@@ -0,0 +1,4 @@
+-- NO_SHOW 스윕: status = 'AVAILABLE' AND updated_at < ? 를 (updated_at, attraction_queue_id) keyset 순서로 읽는다.
+-- 만료된 행 범위만 스캔하도록 세 컬럼 복합 인덱스를 둔다.
+CREATE INDEX IF NOT EXISTS idx_status_updated_at
+    ON attraction_queue (status, updated_at, attraction_queue_id);
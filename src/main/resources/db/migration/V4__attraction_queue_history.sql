@@ -0,0 +1,24 @@
+-- 종료된(COMPLETED / CANCELED / NO_SHOW) 대기열 행 보관 테이블.
+-- 하루가 끝나면 QueueHistoryArchiver 가 attraction_queue 의 종료 행을 옮겨, hot 테이블에는 당일 활성 행만 남긴다.
+-- created_at 기준 일 단위 RANGE 파티션이며, 일자 파티션(pYYYYMMDD)은 롤오버 작업이 p_future 를 나눠 만든다.
+CREATE TABLE IF NOT EXISTS attraction_queue_history (
+    attraction_queue_id BIGINT       NOT NULL,
+    attraction_cycle_id BIGINT       NULL,
+    user_id             BIGINT       NOT NULL,
+    attraction_id       BIGINT       NOT NULL,
+    issued_ticket_id    BIGINT       NOT NULL,
+    ticket_type         VARCHAR(10)  NOT NULL,
+    status              VARCHAR(20)  NOT NULL,
+    ride_code           VARCHAR(50)  NULL,
+    defer_count         INT          NOT NULL DEFAULT 0,
+    created_at          DATETIME     NOT NULL,
+    updated_at          DATETIME     NOT NULL,
+    archived_at         DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (attraction_queue_id, created_at),
+    INDEX idx_history_user_id (user_id),
+    INDEX idx_history_attraction_status (attraction_id, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4
+PARTITION BY RANGE (TO_DAYS(created_at)) (
+    PARTITION p_initial VALUES LESS THAN (TO_DAYS('2000-01-01')),
+    PARTITION p_future  VALUES LESS THAN MAXVALUE
+);
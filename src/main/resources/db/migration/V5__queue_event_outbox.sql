@@ -0,0 +1,9 @@
+-- Kafka 이벤트 transactional outbox.
+-- 상태 전이와 같은 트랜잭션에서 기록하고, OutboxRelay 가 id 순으로 읽어 발행한 뒤 삭제한다.
+CREATE TABLE IF NOT EXISTS queue_event_outbox (
+    outbox_id   BIGINT        NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    topic       VARCHAR(100)  NOT NULL,
+    message_key VARCHAR(100)  NULL,
+    payload     MEDIUMBLOB    NOT NULL,
+    created_at  DATETIME(3)   NOT NULL DEFAULT CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
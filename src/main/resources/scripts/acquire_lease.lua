@@ -0,0 +1,12 @@
+-- 임대(lease) 획득 + 펜싱 토큰 발급
+-- KEYS[1] = lease key
+-- KEYS[2] = fencing token key
+-- ARGV[1] = lease TTL (millis)
+--
+-- 반환: 펜싱 토큰(> 0) = 획득, 0 = 다른 소유자가 보유 중
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+local token = redis.call('INCR', KEYS[2])
+redis.call('SET', KEYS[1], token, 'PX', ARGV[1])
+return token
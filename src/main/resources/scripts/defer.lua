@@ -0,0 +1,48 @@
+-- 대기 미루기: 현재 순번에서 shift 만큼 뒤로 이동
+-- 다른 대기자의 score 는 건드리지 않고, 목표 순번 앞/뒤 이웃 score 사이의 값으로 재배치한다.
+-- KEYS[1] = queue:attraction:{attractionId}:{ticketType}
+-- KEYS[2] = queue:user:{userId} (사용자별 활성 대기열 인덱스)
+-- ARGV[1] = member (userId, RedisTemplate value serializer 로 직렬화된 값)
+-- ARGV[2] = shift (capacity * cycles)
+-- ARGV[3] = now (epoch millis)
+-- ARGV[4] = attractionId (인덱스 필드)
+-- ARGV[5] = 인덱스 값 (status|ticketType|attractionQueueId|deferCount)
+--
+-- 반환: 새 순번 (1-base)
+local member = ARGV[1]
+local shift  = tonumber(ARGV[2])
+local now    = tonumber(ARGV[3])
+
+local currentRank = redis.call('ZRANK', KEYS[1], member)
+if currentRank == false then
+    currentRank = -1
+end
+redis.call('ZREM', KEYS[1], member)
+
+local size = redis.call('ZCARD', KEYS[1])
+local target = math.min(math.max(currentRank, -1) + shift, size)
+if target < 0 then
+    target = 0
+end
+
+local score
+if size == 0 then
+    score = now
+elseif target == 0 then
+    local head = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    score = tonumber(head[2]) - 1
+elseif target >= size then
+    -- 맨 뒤로 가는 경우 이후 등록되는 사용자보다 앞서지 않도록 현재 시각 이상으로 둔다.
+    local tail = redis.call('ZRANGE', KEYS[1], -1, -1, 'WITHSCORES')
+    score = math.max(tonumber(tail[2]) + 1, now)
+else
+    local around = redis.call('ZRANGE', KEYS[1], target - 1, target, 'WITHSCORES')
+    local prev = tonumber(around[2])
+    local next = tonumber(around[4])
+    score = prev + (next - prev) / 2
+end
+
+-- 이웃 score 간격이 double 정밀도 이하로 좁아지면 동점이 되어 member 사전순으로 정렬된다.
+redis.call('ZADD', KEYS[1], string.format('%.17g', score), member)
+redis.call('HSET', KEYS[2], ARGV[4], ARGV[5])
+return redis.call('ZRANK', KEYS[1], member) + 1
@@ -0,0 +1,27 @@
+-- 회차 디스패치: 이번 회차 탑승 인원을 원자적으로 꺼내고, 곧 차례가 될 대기자를 함께 조회
+-- KEYS[1] = queue:attraction:{attractionId}:{ticketType}
+-- KEYS[2] = attraction:dispatch_fence:{attractionId}
+-- ARGV[1] = capacity (이번 회차 탑승 인원)
+-- ARGV[2] = almostReadyEnd (곧 차례 안내 대상의 마지막 rank, 꺼내기 전 기준 / -1 이면 조회하지 않음)
+-- ARGV[3] = 펜싱 토큰 (lease 획득 시 발급)
+--
+-- 반환: {{member1, score1, member2, score2, ...}, {almostReadyMember...}, fenced}
+--   fenced 1 = 더 새로운 토큰이 발급되어 거부됨 (아무것도 꺼내지 않음)
+if redis.call('GET', KEYS[2]) ~= ARGV[3] then
+    return {{}, {}, 1}
+end
+
+local capacity = tonumber(ARGV[1])
+local almostReadyEnd = tonumber(ARGV[2])
+
+local almostReady = {}
+if almostReadyEnd >= capacity then
+    almostReady = redis.call('ZRANGE', KEYS[1], capacity, almostReadyEnd)
+end
+
+local boarded = {}
+if capacity > 0 then
+    boarded = redis.call('ZPOPMIN', KEYS[1], capacity)
+end
+
+return {boarded, almostReady, 0}
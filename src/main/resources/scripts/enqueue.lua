@@ -0,0 +1,33 @@
+-- 대기열 등록 (단일 왕복)
+-- KEYS[1] = queue:attraction:{attractionId}:{ticketType}
+-- KEYS[2] = attraction:meta:{attractionId}
+-- KEYS[3] = queue:user:{userId} (사용자별 활성 대기열 인덱스)
+-- ARGV[1] = member (userId, RedisTemplate value serializer 로 직렬화된 값)
+-- ARGV[2] = score (epoch millis)
+-- ARGV[3] = 수용 인원 필드명 (capacityPremium | capacityBasic)
+-- ARGV[4] = attractionId (인덱스 필드)
+-- ARGV[5] = 인덱스 값 (status|ticketType|attractionQueueId|deferCount)
+--
+-- 반환: {status, queueSizeBefore, rank, capacity, cyclingTimeSeconds}
+--   status  1 = 신규 등록, 0 = 이미 ZSET 에 존재(기존 순번 유지), -1 = 메타 없음, -2 = 이미 활성 대기열 있음
+if redis.call('HEXISTS', KEYS[3], ARGV[4]) == 1 then
+    return {-2, 0, -1, 0, 0}
+end
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    return {-1, 0, -1, 0, 0}
+end
+
+local meta      = redis.call('HMGET', KEYS[2], ARGV[3], 'cyclingTimeSeconds')
+local capacity  = tonumber(meta[1]) or 0
+local cycleSecs = tonumber(meta[2]) or 0
+
+local sizeBefore = redis.call('ZCARD', KEYS[1])
+local status = 0
+if redis.call('ZSCORE', KEYS[1], ARGV[1]) == false then
+    redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+    status = 1
+end
+redis.call('HSET', KEYS[3], ARGV[4], ARGV[5])
+
+local rank = redis.call('ZRANK', KEYS[1], ARGV[1])
+return {status, sizeBefore, rank, capacity, cycleSecs}
@@ -0,0 +1,17 @@
+-- 사용자 인덱스 필드가 기대한 상태/대기열 id 일 때만 지운다 (compare-and-delete)
+-- KEYS[1] = 사용자 인덱스 해시 키
+-- ARGV[1] = 필드 (attractionId)
+-- ARGV[2] = 기대 상태 (예: AVAILABLE)
+-- ARGV[3] = 기대 attractionQueueId
+--
+-- 반환: 1 = 지움, 0 = 값이 달라 건드리지 않음, -1 = 필드 없음
+local value = redis.call('HGET', KEYS[1], ARGV[1])
+if not value then
+    return -1
+end
+local status, _, id = string.match(value, '^([^|]*)|([^|]*)|([^|]*)|')
+if status == ARGV[2] and id == ARGV[3] then
+    redis.call('HDEL', KEYS[1], ARGV[1])
+    return 1
+end
+return 0
@@ -0,0 +1,11 @@
+-- 해시가 이미 있을 때만 필드 하나를 쓴다 (없는 키에 부분 해시를 만들지 않도록)
+-- KEYS[1] = 해시 키
+-- ARGV[1] = 필드
+-- ARGV[2] = 값
+--
+-- 반환: 1 = 기록함, 0 = 해시 없음
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+    return 1
+end
+return 0
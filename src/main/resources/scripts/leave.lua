@@ -0,0 +1,10 @@
+-- 대기열 이탈 (취소/탑승 완료): ZSET member 와 사용자 인덱스 필드를 함께 제거
+-- KEYS[1] = queue:attraction:{attractionId}:{ticketType}
+-- KEYS[2] = queue:user:{userId}
+-- ARGV[1] = member (userId, RedisTemplate value serializer 로 직렬화된 값)
+-- ARGV[2] = attractionId (인덱스 필드)
+--
+-- 반환: ZSET 에서 제거된 member 수
+local removed = redis.call('ZREM', KEYS[1], ARGV[1])
+redis.call('HDEL', KEYS[2], ARGV[2])
+return removed
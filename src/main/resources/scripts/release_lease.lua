@@ -0,0 +1,9 @@
+-- 임대(lease) 해제: 내가 잡은 lease 일 때만 삭제
+-- KEYS[1] = lease key
+-- ARGV[1] = 획득 시 받은 펜싱 토큰
+--
+-- 반환: 1 = 해제, 0 = 이미 만료되었거나 다른 소유자
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
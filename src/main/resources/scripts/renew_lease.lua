@@ -0,0 +1,10 @@
+-- 임대(lease) 연장: 내가 잡은 lease 일 때만 TTL 을 다시 설정
+-- KEYS[1] = lease key
+-- ARGV[1] = 획득 시 받은 펜싱 토큰
+-- ARGV[2] = lease TTL (millis)
+--
+-- 반환: 1 = 연장, 0 = 이미 만료되었거나 다른 소유자
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,21 @@
+-- 여러 사용자의 인덱스 필드 상태만 일괄 변경 (티켓 종류/행 ID/미루기 횟수는 유지)
+-- KEYS[i] = queue:user:{userId}
+-- ARGV[1] = attractionId (인덱스 필드)
+-- ARGV[2] = 새 상태 (빈 문자열이면 필드 삭제)
+--
+-- 인덱스에 필드가 없는 사용자(그 사이 취소 등)는 건너뛴다.
+-- 반환: 변경된 필드 수
+local changed = 0
+for i = 1, #KEYS do
+    local value = redis.call('HGET', KEYS[i], ARGV[1])
+    if value then
+        if ARGV[2] == '' then
+            redis.call('HDEL', KEYS[i], ARGV[1])
+        else
+            local sep = string.find(value, '|', 1, true)
+            redis.call('HSET', KEYS[i], ARGV[1], ARGV[2] .. string.sub(value, sep or (#value + 1)))
+        end
+        changed = changed + 1
+    end
+end
+return changed
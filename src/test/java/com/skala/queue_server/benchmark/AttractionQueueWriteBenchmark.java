@@ -0,0 +1,155 @@
+package com.skala.queue_server.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * attraction_queue 대량 쓰기 처리량(rows/sec) 측정 하네스.
+ *
+ * 시퀀스 + JDBC 배치 이전 방식(행마다 IDENTITY INSERT, 행마다 조건부 UPDATE)과
+ * 현재 방식(NEXTVAL 한 번으로 50개 ID 구간 + 배치 INSERT, ID 목록 단위 NO_SHOW UPDATE)을 같은 DB 에서 비교한다.
+ * 비어 있는 검증용 MariaDB 가 필요하며 Flyway 로 스키마를 맞춘 뒤 측정하고, 만든 행은 지운다.
+ *
+ *   QUEUE_BENCH_JDBC_URL=jdbc:mariadb://localhost:3306/queue_bench \
+ *   QUEUE_BENCH_DB_USERNAME=skala QUEUE_BENCH_DB_PASSWORD=skala ./gradlew benchmark
+ *
+ * 행 수는 -Dbench.rows (기본 5000).
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "QUEUE_BENCH_JDBC_URL", matches = ".+")
+class AttractionQueueWriteBenchmark {
+
+    private static final long USER_BASE    = 900_000_000L;
+    private static final long ATTRACTION   = 900_000L;
+    private static final int ID_BLOCK_SIZE = 50;       // V2 시퀀스 INCREMENT BY
+    private static final int UPDATE_CHUNK  = 1000;
+
+    private static final String INSERT_IDENTITY_SQL =
+            "INSERT INTO attraction_queue (user_id, attraction_id, issued_ticket_id, ticket_type, status, defer_count) " +
+            "VALUES (?, ?, ?, 'BASIC', 'AVAILABLE', 0)";
+    private static final String INSERT_SEQUENCE_SQL =
+            "INSERT INTO attraction_queue (attraction_queue_id, user_id, attraction_id, issued_ticket_id, ticket_type, " +
+            "status, defer_count) VALUES (?, ?, ?, ?, 'BASIC', 'AVAILABLE', 0)";
+
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static final int ROWS = Integer.getInteger("bench.rows", 5000);
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                System.getenv("QUEUE_BENCH_JDBC_URL"),
+                System.getenv().getOrDefault("QUEUE_BENCH_DB_USERNAME", "skala"),
+                System.getenv().getOrDefault("QUEUE_BENCH_DB_PASSWORD", "skala"));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        cleanUp();
+    }
+
+    @AfterAll
+    static void cleanUp() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("DELETE FROM attraction_queue WHERE attraction_id = ?", ATTRACTION);
+        }
+    }
+
+    @Test
+    void bulkEnqueueRowsPerSecond() {
+        long before = timed(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                jdbcTemplate.update(INSERT_IDENTITY_SQL, USER_BASE + i, ATTRACTION, USER_BASE + i);
+            }
+        }));
+        cleanUp();
+
+        long after = timed(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> args = new ArrayList<>(ROWS);
+            long nextId = 0;
+            long blockEnd = 0;
+            for (int i = 0; i < ROWS; i++) {
+                if (nextId >= blockEnd) {
+                    nextId = jdbcTemplate.queryForObject("SELECT NEXTVAL(attraction_queue_seq)", Long.class);
+                    blockEnd = nextId + ID_BLOCK_SIZE;
+                }
+                args.add(new Object[]{nextId++, USER_BASE + i, ATTRACTION, USER_BASE + i});
+            }
+            jdbcTemplate.batchUpdate(INSERT_SEQUENCE_SQL, args);
+        }));
+
+        assertThat(count("AVAILABLE")).isEqualTo(ROWS);
+        report("bulk enqueue", before, after);
+    }
+
+    @Test
+    void bulkNoShowRowsPerSecond() {
+        List<Long> ids = seedAvailable();
+        long before = timed(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (Long id : ids) {
+                jdbcTemplate.update("UPDATE attraction_queue SET status = 'NO_SHOW', updated_at = NOW() " +
+                        "WHERE attraction_queue_id = ? AND status = 'AVAILABLE'", id);
+            }
+        }));
+        assertThat(count("NO_SHOW")).isEqualTo(ROWS);
+
+        jdbcTemplate.update("UPDATE attraction_queue SET status = 'AVAILABLE' WHERE attraction_id = ?", ATTRACTION);
+        long after = timed(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < ids.size(); from += UPDATE_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(from + UPDATE_CHUNK, ids.size()));
+                jdbcTemplate.update("UPDATE attraction_queue SET status = 'NO_SHOW', updated_at = NOW() " +
+                        "WHERE attraction_queue_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) +
+                        ") AND status = 'AVAILABLE'", chunk.toArray());
+            }
+        }));
+        assertThat(count("NO_SHOW")).isEqualTo(ROWS);
+        report("bulk NO_SHOW", before, after);
+    }
+
+    private static List<Long> seedAvailable() {
+        cleanUp();
+        List<Object[]> args = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            args.add(new Object[]{USER_BASE + i, ATTRACTION, USER_BASE + i});
+        }
+        jdbcTemplate.batchUpdate(INSERT_IDENTITY_SQL, args);
+        return jdbcTemplate.queryForList("SELECT attraction_queue_id FROM attraction_queue WHERE attraction_id = ? " +
+                "ORDER BY attraction_queue_id", Long.class, ATTRACTION);
+    }
+
+    private static int count(String status) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM attraction_queue WHERE attraction_id = ? AND status = ?",
+                Integer.class, ATTRACTION, status);
+        return count == null ? 0 : count;
+    }
+
+    private static long timed(Runnable work) {
+        long start = System.nanoTime();
+        work.run();
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String name, long beforeNanos, long afterNanos) {
+        System.out.printf("%-14s rows=%d  before=%,.0f rows/s  after=%,.0f rows/s  (x%.1f)%n",
+                name, ROWS, rowsPerSecond(beforeNanos), rowsPerSecond(afterNanos),
+                (double) beforeNanos / afterNanos);
+    }
+
+    private static double rowsPerSecond(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+}
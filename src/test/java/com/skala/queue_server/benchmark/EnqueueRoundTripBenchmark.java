@@ -0,0 +1,173 @@
+package com.skala.queue_server.benchmark;
+
+import com.skala.queue_server.redis.QueueRedisScripts;
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 대기열 등록 한 건당 Redis 왕복 수 / 지연 측정 하네스.
+ *
+ *   legacy : 스크립트 이전 QueueService.enqueue 의 호출 순서
+ *            (메타 hasKey, ZCARD, 회차 계산용 HGET, ZADD, ZRANK, 예상 시간용 HGET x2)
+ *   script : QueueRedisScripts.enqueue (EVALSHA 한 번)
+ *
+ * 왕복 수는 Lettuce 가 응답을 받을 때마다 호출하는 CommandLatencyRecorder 로 센다 (명령 하나 = 요청/응답 한 번).
+ * 비어 있는 검증용 Redis 가 필요하며, bench:* 키만 쓰고 지운다.
+ *
+ *   QUEUE_BENCH_REDIS_HOST=localhost QUEUE_BENCH_REDIS_PORT=6379 ./gradlew benchmark
+ *
+ * 등록 건수는 -Dbench.joins (기본 5000).
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "QUEUE_BENCH_REDIS_HOST", matches = ".+")
+class EnqueueRoundTripBenchmark {
+
+    private static final int JOINS          = Integer.getInteger("bench.joins", 5000);
+    private static final long ATTRACTION_ID = 900_000L;
+    private static final String QUEUE_KEY   = "bench:queue:attraction:" + ATTRACTION_ID + ":BASIC";
+    private static final String META_KEY    = "bench:attraction:meta:" + ATTRACTION_ID;
+    private static final String USER_KEY    = "bench:queue:user:%d";
+
+    private static final AtomicLong roundTrips = new AtomicLong();
+
+    private static ClientResources clientResources;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, String> redisTemplate;
+    private static QueueRedisScripts queueRedisScripts;
+
+    @BeforeAll
+    static void setUp() {
+        clientResources = DefaultClientResources.builder()
+                .commandLatencyRecorder(new CommandLatencyRecorder() {
+                    @Override
+                    public void recordCommandLatency(SocketAddress local, SocketAddress remote,
+                                                     ProtocolKeyword commandType,
+                                                     long firstResponseLatency, long completionLatency) {
+                        roundTrips.incrementAndGet();
+                    }
+                })
+                .build();
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(System.getenv("QUEUE_BENCH_REDIS_HOST"),
+                        Integer.parseInt(System.getenv().getOrDefault("QUEUE_BENCH_REDIS_PORT", "6379"))),
+                LettuceClientConfiguration.builder().clientResources(clientResources).build());
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        // 애플리케이션 RedisConfig 와 같은 직렬화 설정
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashValueSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+        queueRedisScripts = new QueueRedisScripts(redisTemplate);
+
+        redisTemplate.opsForHash().putAll(META_KEY, Map.of(
+                "cyclingTimeSeconds", "120", "capacityPremium", "4", "capacityBasic", "20"));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (redisTemplate != null) {
+            cleanUp();
+            redisTemplate.delete(META_KEY);
+        }
+        if (connectionFactory != null) connectionFactory.destroy();
+        if (clientResources != null) clientResources.shutdown();
+    }
+
+    @Test
+    void roundTripsPerJoin() {
+        cleanUp();
+        Result legacy = measure("legacy", this::legacyJoin);
+        cleanUp();
+        Result script = measure("script", this::scriptJoin);
+
+        System.out.printf("%-7s joins=%d  round trips/join=%.2f  mean latency=%.1f us  joins/s=%,.0f%n",
+                legacy.name(), JOINS, legacy.roundTripsPerJoin(), legacy.meanMicros(), legacy.joinsPerSecond());
+        System.out.printf("%-7s joins=%d  round trips/join=%.2f  mean latency=%.1f us  joins/s=%,.0f%n",
+                script.name(), JOINS, script.roundTripsPerJoin(), script.meanMicros(), script.joinsPerSecond());
+
+        assertThat(script.roundTripsPerJoin()).isLessThan(legacy.roundTripsPerJoin());
+        assertThat(redisTemplate.opsForZSet().size(QUEUE_KEY)).isEqualTo(JOINS);
+    }
+
+    // 스크립트 이전 등록 경로 (메타가 있는 경우)
+    private void legacyJoin(long userId) {
+        redisTemplate.hasKey(META_KEY);
+        Long size = redisTemplate.opsForZSet().size(QUEUE_KEY);
+        redisTemplate.opsForHash().get(META_KEY, "capacityBasic");
+        redisTemplate.opsForZSet().add(QUEUE_KEY, Long.toString(userId), System.currentTimeMillis());
+        redisTemplate.opsForZSet().rank(QUEUE_KEY, Long.toString(userId));
+        redisTemplate.opsForHash().get(META_KEY, "capacityBasic");
+        redisTemplate.opsForHash().get(META_KEY, "cyclingTimeSeconds");
+        assertThat(size).isNotNull();
+    }
+
+    private void scriptJoin(long userId) {
+        QueueRedisScripts.EnqueueResult result = queueRedisScripts.enqueue(
+                QUEUE_KEY, META_KEY, String.format(USER_KEY, userId), userId,
+                "capacityBasic", ATTRACTION_ID, "WAITING|BASIC||0");
+        assertThat(result.metaMissing()).isFalse();
+    }
+
+    private static Result measure(String name, Join join) {
+        // 스크립트 캐시(EVALSHA 미스 → EVAL)와 연결 수립을 측정에서 빼기 위해 한 번 먼저 호출한다.
+        join.run(-1L);
+        cleanUp();
+
+        long tripsBefore = roundTrips.get();
+        long start = System.nanoTime();
+        for (long userId = 1; userId <= JOINS; userId++) {
+            join.run(userId);
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(name, (double) (roundTrips.get() - tripsBefore) / JOINS, elapsed);
+    }
+
+    private static void cleanUp() {
+        redisTemplate.delete(QUEUE_KEY);
+        List<String> userKeys = new ArrayList<>(JOINS + 1);
+        for (long userId = -1; userId <= JOINS; userId++) {
+            userKeys.add(String.format(USER_KEY, userId));
+        }
+        redisTemplate.delete(userKeys);
+    }
+
+    @FunctionalInterface
+    private interface Join {
+        void run(long userId);
+    }
+
+    private record Result(String name, double roundTripsPerJoin, long elapsedNanos) {
+
+        double meanMicros() {
+            return elapsedNanos / 1_000.0 / JOINS;
+        }
+
+        double joinsPerSecond() {
+            return JOINS / (elapsedNanos / 1_000_000_000.0);
+        }
+    }
+}
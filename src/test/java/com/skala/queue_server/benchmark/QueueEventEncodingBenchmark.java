@@ -0,0 +1,96 @@
+package com.skala.queue_server.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skala.queue_server.event.QueueAvailableEvent;
+import com.skala.queue_server.event.QueueEventEncoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 이벤트 인코딩 비교 하네스: 이벤트 1건당 바이트 수, 할당 바이트, 소요 시간.
+ *
+ *   map+mapper  : 이전 방식 (이벤트마다 LinkedHashMap + 공유 ObjectMapper.writeValueAsString → UTF-8)
+ *   record+json : 타입 레코드 + 캐시된 ObjectWriter (QueueEventEncoder 기본)
+ *   record+smile: 타입 레코드 + Smile (queue.events.binary-topics 에 넣은 토픽)
+ *
+ * 할당량은 com.sun.management.ThreadMXBean 의 스레드별 할당 바이트로 잰다. ./gradlew benchmark
+ */
+@Tag("benchmark")
+class QueueEventEncodingBenchmark {
+
+    private static final String JSON_TOPIC  = "queue-available-event";
+    private static final String SMILE_TOPIC = "queue-available-event-smile";
+    private static final int WARMUP     = 50_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QueueEventEncoder encoder = new QueueEventEncoder(objectMapper, Set.of(SMILE_TOPIC));
+
+    @Test
+    void compareEncodings() throws Exception {
+        Result map = measure("map+mapper", i -> objectMapper.writeValueAsString(legacyEvent(i))
+                .getBytes(StandardCharsets.UTF_8));
+        Result json = measure("record+json", i -> encoder.encode(JSON_TOPIC, event(i)));
+        Result smile = measure("record+smile", i -> encoder.encode(SMILE_TOPIC, event(i)));
+
+        System.out.printf("%-13s %12s %16s %12s%n", "encoding", "bytes/event", "alloc bytes/event", "ns/event");
+        for (Result r : new Result[]{map, json, smile}) {
+            System.out.printf("%-13s %12d %16.0f %12.0f%n", r.name(), r.bytes(), r.allocatedPerEvent(), r.nanosPerEvent());
+        }
+
+        // 레코드 인코딩은 이전 Map 인코딩과 같은 JSON 을 만들어야 소비자가 그대로 읽는다.
+        assertThat(objectMapper.readTree(encoder.encode(JSON_TOPIC, event(1))))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(legacyEvent(1))));
+        assertThat(smile.bytes()).isLessThan(json.bytes());
+    }
+
+    private Result measure(String name, Encoding encoding) throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += encoding.encode(i).length;
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += encoding.encode(i).length;
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertThat(sink).isPositive();
+        return new Result(name, encoding.encode(1).length,
+                (double) allocated / ITERATIONS, (double) elapsed / ITERATIONS);
+    }
+
+    private static QueueAvailableEvent event(int i) {
+        return new QueueAvailableEvent(100_000L + i, 5_000L + i, 7L, "Coaster", "PREMIUM", 900L + i, "AVAILABLE");
+    }
+
+    private static Map<String, Object> legacyEvent(int i) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("attractionQueueId", 100_000L + i);
+        event.put("userId",            5_000L + i);
+        event.put("attractionId",      7L);
+        event.put("attractionName",    "Coaster");
+        event.put("ticketType",        "PREMIUM");
+        event.put("cycleId",           900L + i);
+        event.put("status",            "AVAILABLE");
+        return event;
+    }
+
+    @FunctionalInterface
+    private interface Encoding {
+        byte[] encode(int i) throws Exception;
+    }
+
+    private record Result(String name, int bytes, double allocatedPerEvent, double nanosPerEvent) {}
+}
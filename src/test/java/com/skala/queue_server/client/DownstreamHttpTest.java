@@ -0,0 +1,71 @@
+package com.skala.queue_server.client;
+
+import com.skala.queue_server.util.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamHttpTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DownstreamHttp downstreamHttp;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("service.http.circuit.window-size", "4")
+                .withProperty("service.http.circuit.failure-rate-threshold", "0.5")
+                .withProperty("service.http.circuit.minimum-calls", "1")
+                .withProperty("service.http.circuit.open-ms", "0")
+                .withProperty("service.http.circuit.half-open-permits", "1")
+                .withProperty("service.http.hedge-delay-ms", "0");
+        meterRegistry = new SimpleMeterRegistry();
+        downstreamHttp = new DownstreamHttp(environment, meterRegistry);
+    }
+
+    @Test
+    void cancelledHalfOpenTrialDoesNotLeakPermit() {
+        tripBreaker();
+
+        // HALF_OPEN 시험 호출을 응답 전에 취소
+        Disposable inFlight = downstreamHttp.get("svc", "lookup", Mono::<String>never).subscribe();
+        assertThat(downstreamHttp.state("svc")).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        inFlight.dispose();
+
+        // 허가가 반납되었으므로 다음 시험 호출이 나가고, 성공하면 CLOSED
+        String result = downstreamHttp.get("svc", "lookup", () -> Mono.just("ok")).block(Duration.ofSeconds(1));
+        assertThat(result).isEqualTo("ok");
+        assertThat(downstreamHttp.state("svc")).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.find("http.client.downstream").tag("outcome", "cancelled").timer())
+                .isNotNull()
+                .extracting(t -> t.count()).isEqualTo(1L);
+    }
+
+    @Test
+    void halfOpenRejectsWhileTrialIsInFlight() {
+        tripBreaker();
+
+        Disposable inFlight = downstreamHttp.get("svc", "lookup", Mono::<String>never).subscribe();
+        try {
+            assertThatThrownBy(() -> downstreamHttp.get("svc", "lookup", () -> Mono.just("ok")).block())
+                    .isInstanceOf(CircuitBreaker.OpenException.class);
+        } finally {
+            inFlight.dispose();
+        }
+    }
+
+    private void tripBreaker() {
+        assertThatThrownBy(() -> downstreamHttp.get("svc", "lookup",
+                () -> Mono.<String>error(new IllegalStateException("boom"))).block())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(downstreamHttp.state("svc")).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,88 @@
+package com.skala.queue_server.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skala.queue_server.client.AttractionCycleCache;
+import com.skala.queue_server.dto.AttractionMeta;
+import com.skala.queue_server.service.AttractionMetaCache;
+import com.skala.queue_server.service.AttractionSchedulerService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AttractionEventConsumerTest {
+
+    private static final String META_TOPIC  = "attraction-meta-event";
+    private static final String CYCLE_TOPIC = "attraction-cycle-event";
+
+    private AttractionSchedulerService schedulerService;
+    private AttractionMetaCache attractionMetaCache;
+    private AttractionCycleCache attractionCycleCache;
+    private AttractionEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        schedulerService = mock(AttractionSchedulerService.class);
+        attractionMetaCache = mock(AttractionMetaCache.class);
+        attractionCycleCache = mock(AttractionCycleCache.class);
+        consumer = new AttractionEventConsumer(
+                schedulerService, attractionMetaCache, attractionCycleCache, new ObjectMapper(), META_TOPIC);
+    }
+
+    @Test
+    void metaEventIsAppliedAsTypedMeta() {
+        consumer.handleMeta("""
+                {"attractionId":7,"attractionName":"Coaster","ridingTime":120,"capacityPremium":4,"capacityBasic":20}
+                """);
+
+        verify(schedulerService).applyAttractionMeta(new AttractionMeta(7L, 120, 4, 20, "Coaster"));
+    }
+
+    @Test
+    void incompleteOrMalformedMetaEventIsIgnored() {
+        consumer.handleMeta("{\"attractionId\":7,\"ridingTime\":120}");
+        consumer.handleMeta("not json");
+
+        verifyNoInteractions(schedulerService);
+    }
+
+    @Test
+    void cycleEventUsesCachedCyclingTime() {
+        when(attractionMetaCache.get(7L)).thenReturn(new AttractionMeta(7L, 120, 4, 20, "Coaster"));
+        String today = LocalDate.now().toString();
+
+        consumer.handleCycle("""
+                {"attractionId":7,"attractionCycleId":900,"cycleNumber":3,"rideDate":"%s","startedAt":1700000000000}
+                """.formatted(today));
+
+        verify(attractionCycleCache).apply(7L, LocalDate.parse(today), 3, 900L, 1700000000000L, 120);
+    }
+
+    @Test
+    void incompleteCycleEventIsIgnored() {
+        consumer.handleCycle("{\"attractionId\":7,\"cycleNumber\":3}");
+
+        verify(attractionCycleCache, never()).apply(any(), any(), anyInt(), any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void recordsAreRoutedByTopicAndTombstonesSkipped() {
+        consumer.onMessage(new ConsumerRecord<>(META_TOPIC, 0, 0L, "7",
+                "{\"attractionId\":7,\"ridingTime\":60,\"capacityPremium\":2,\"capacityBasic\":10}"));
+        consumer.onMessage(new ConsumerRecord<>(CYCLE_TOPIC, 0, 0L, "7", null));
+
+        verify(schedulerService).applyAttractionMeta(eq(new AttractionMeta(7L, 60, 2, 10, null)));
+        verifyNoInteractions(attractionCycleCache);
+    }
+}
@@ -0,0 +1,108 @@
+package com.skala.queue_server.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BufferedKafkaSenderTest {
+
+    private static final String TOPIC = "topic";
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, byte[]> kafkaTemplate() {
+        return mock(KafkaTemplate.class);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) throw new AssertionError("condition not met within 5s");
+            Thread.sleep(20);
+        }
+    }
+
+    // k2 의 첫 전송만 실패 → ACK 된 k1 만 지워지고, k2 부터 다시 보낸다 (k1 은 다시 보내지 않는다).
+    // 같은 배치에서 k2 뒤에 보낸 k3 는 ACK 되더라도 지워지지 않으므로 k2 와 함께 다시 나간다 (at-least-once).
+    @Test
+    void onlyAckedPrefixIsPoppedAndFailedRecordIsRetriedInOrder(@TempDir Path dir) throws Exception {
+        KafkaTemplate<String, byte[]> kafkaTemplate = kafkaTemplate();
+        List<String> attempts = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> failures = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean failedOnce = new AtomicBoolean();
+        when(kafkaTemplate.send(anyString(), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            attempts.add(key);
+            if (key.equals("k2") && failedOnce.compareAndSet(false, true)) {
+                failures.add(attempts.size() - 1);
+                return CompletableFuture.failedFuture(new IllegalStateException("broker down"));
+            }
+            return CompletableFuture.completedFuture((SendResult<String, byte[]>) null);
+        });
+
+        try (BufferedKafkaSender sender = new BufferedKafkaSender(
+                kafkaTemplate, new SimpleMeterRegistry(), 4096, dir.resolve("spill.dat"), 4096)) {
+            assertThat(sender.send(TOPIC, "k1", new byte[]{1})).isTrue();
+            assertThat(sender.send(TOPIC, "k2", new byte[]{2})).isTrue();
+            assertThat(sender.send(TOPIC, "k3", new byte[]{3})).isTrue();
+
+            waitUntil(() -> {
+                synchronized (attempts) {
+                    int retry = attempts.lastIndexOf("k2");
+                    return !failures.isEmpty() && retry > failures.get(0) && attempts.lastIndexOf("k3") > retry;
+                }
+            });
+        }
+
+        synchronized (attempts) {
+            assertThat(Collections.frequency(attempts, "k1")).isEqualTo(1);
+            assertThat(attempts.subList(attempts.lastIndexOf("k2"), attempts.size())).containsExactly("k2", "k3");
+        }
+    }
+
+    // 메모리 링(레코드 1개 크기)이 차면 spill 로 넘기고, 종료 시 메모리 링의 레코드를 spill 앞쪽으로 옮겨
+    // 재시작한 발행기가 원래 순서대로 보낸다.
+    @Test
+    void overflowGoesToSpillAndIsReplayedInOrderAfterRestart(@TempDir Path dir) throws Exception {
+        Path spillPath = dir.resolve("spill.dat");
+        KafkaTemplate<String, byte[]> down = kafkaTemplate();
+        when(down.send(anyString(), anyString(), any(byte[].class)))
+                .thenThrow(new IllegalStateException("broker down"));
+
+        // 레코드 1건 = 2 + 5(topic) + 4 + 2(key) + 16(payload) + 4(길이) = 33바이트
+        try (BufferedKafkaSender sender = new BufferedKafkaSender(
+                down, new SimpleMeterRegistry(), 64, spillPath, 4096)) {
+            assertThat(sender.send(TOPIC, "k1", new byte[16])).isTrue();
+            assertThat(sender.send(TOPIC, "k2", new byte[16])).isTrue();
+            assertThat(sender.send(TOPIC, "k3", new byte[16])).isTrue();
+        }
+
+        KafkaTemplate<String, byte[]> up = kafkaTemplate();
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        when(up.send(anyString(), anyString(), any(byte[].class))).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(1));
+            return CompletableFuture.completedFuture((SendResult<String, byte[]>) null);
+        });
+        try (BufferedKafkaSender ignored = new BufferedKafkaSender(
+                up, new SimpleMeterRegistry(), 64, spillPath, 4096)) {
+            waitUntil(() -> sent.size() >= 3);
+        }
+
+        assertThat(sent).containsExactly("k1", "k2", "k3");
+    }
+}
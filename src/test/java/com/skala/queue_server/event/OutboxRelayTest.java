@@ -0,0 +1,128 @@
+package com.skala.queue_server.event;
+
+import com.skala.queue_server.redis.QueueRedisScripts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTest {
+
+    private static final String TOPIC      = "queue-user-status-event";
+    private static final String SELECT_SQL = "SELECT outbox_id";
+    private static final String DELETE_SQL = "DELETE FROM queue_event_outbox";
+    private static final int BATCH_SIZE    = 3;
+
+    private JdbcTemplate jdbcTemplate;
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+    private QueueRedisScripts queueRedisScripts;
+    private OutboxRelay relay;
+    private final Deque<List<ResultSet>> pages = new ArrayDeque<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        queueRedisScripts = mock(QueueRedisScripts.class);
+        when(queueRedisScripts.acquireLease(anyString(), anyString(), anyLong())).thenReturn(5L);
+
+        // 호출마다 다음 페이지의 행을 RowMapper 로 매핑해 돌려준다.
+        when(jdbcTemplate.query(startsWith(SELECT_SQL), any(RowMapper.class), eq(BATCH_SIZE))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<ResultSet> page = pages.isEmpty() ? List.of() : pages.poll();
+            List<Object> rows = new ArrayList<>(page.size());
+            for (int i = 0; i < page.size(); i++) rows.add(mapper.mapRow(page.get(i), i));
+            return rows;
+        });
+
+        relay = new OutboxRelay(jdbcTemplate, kafkaTemplate, queueRedisScripts, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(relay, "outboxEnabled", true);
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        ReflectionTestUtils.setField(relay, "sendTimeoutMs", 1_000L);
+        ReflectionTestUtils.setField(relay, "leaseMs", 30_000L);
+    }
+
+    private static ResultSet row(long outboxId, String key) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(outboxId);
+        when(rs.getString(2)).thenReturn(TOPIC);
+        when(rs.getString(3)).thenReturn(key);
+        when(rs.getBytes(4)).thenReturn(new byte[]{(byte) outboxId});
+        return rs;
+    }
+
+    private void brokerFailsFor(Set<String> failingKeys) {
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any(byte[].class))).thenAnswer(invocation ->
+                failingKeys.contains(invocation.<String>getArgument(1))
+                        ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                        : CompletableFuture.completedFuture((SendResult<String, byte[]>) null));
+    }
+
+    // 두 번째 행이 실패하면 첫 행만 지우고 이번 주기를 끝낸다 (실패한 행부터 다음 주기에 다시 보냄).
+    @Test
+    void onlyAckedPrefixIsDeleted() throws SQLException {
+        pages.add(List.of(row(1L, "u1"), row(2L, "u2"), row(3L, "u3")));
+        brokerFailsFor(Set.of("u2"));
+
+        relay.relay();
+
+        verify(jdbcTemplate).update(startsWith(DELETE_SQL), eq(1L));
+        verify(jdbcTemplate, times(1)).query(startsWith(SELECT_SQL), any(RowMapper.class), eq(BATCH_SIZE));
+        verify(queueRedisScripts).releaseLease(anyString(), eq(5L));
+    }
+
+    // 가득 찬 배치를 모두 보냈으면 같은 주기에 다음 배치를 읽는다. id 순으로 보내므로 같은 키의 순서가 유지된다.
+    @Test
+    void fullBatchesAreRelayedInIdOrderUntilDrained() throws SQLException {
+        pages.add(List.of(row(1L, "u1"), row(2L, "u2"), row(3L, "u1")));
+        pages.add(List.of(row(4L, "u2")));
+        brokerFailsFor(Set.of());
+
+        relay.relay();
+
+        InOrder order = inOrder(kafkaTemplate, jdbcTemplate);
+        order.verify(kafkaTemplate).send(TOPIC, "u1", new byte[]{1});
+        order.verify(kafkaTemplate).send(TOPIC, "u2", new byte[]{2});
+        order.verify(kafkaTemplate).send(TOPIC, "u1", new byte[]{3});
+        order.verify(jdbcTemplate).update(startsWith(DELETE_SQL), eq(1L), eq(2L), eq(3L));
+        order.verify(kafkaTemplate).send(TOPIC, "u2", new byte[]{4});
+        order.verify(jdbcTemplate).update(startsWith(DELETE_SQL), eq(4L));
+    }
+
+    @Test
+    void nothingIsSentWithoutTheLease() {
+        when(queueRedisScripts.acquireLease(anyString(), anyString(), anyLong())).thenReturn(0L);
+
+        relay.relay();
+
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), any(byte[].class));
+        verify(queueRedisScripts, never()).releaseLease(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,132 @@
+package com.skala.queue_server.service;
+
+import com.skala.queue_server.entity.QueueStatus;
+import com.skala.queue_server.entity.TicketType;
+import com.skala.queue_server.redis.QueueRedisScripts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QueueJournalWriterTest {
+
+    private static final String GROUP     = "queue-writer";
+    private static final String LEASE_KEY = "queue:journal:writer_lease";
+    private static final long FENCE       = 7L;
+    private static final RecordId INSERT_ID   = RecordId.of("1-0");
+    private static final RecordId DISPATCH_ID = RecordId.of("2-0");
+
+    private StreamOperations<String, Object, Object> streamOps;
+    private QueueRedisScripts queueRedisScripts;
+    private JdbcTemplate jdbcTemplate;
+    private QueueJournalWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        QueueJournal queueJournal = mock(QueueJournal.class);
+        when(queueJournal.isEnabled()).thenReturn(true);
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        streamOps = mock(StreamOperations.class);
+        when(redisTemplate.<Object, Object>opsForStream()).thenReturn(streamOps);
+        when(redisTemplate.hasKey(QueueJournal.STREAM_KEY)).thenReturn(true);
+
+        queueRedisScripts = mock(QueueRedisScripts.class);
+        when(queueRedisScripts.acquireLease(eq(LEASE_KEY), anyString(), anyLong())).thenReturn(FENCE);
+        jdbcTemplate = mock(JdbcTemplate.class);
+
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<java.util.function.Consumer<TransactionStatus>>getArgument(0)
+                    .accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        DispatchOwnership dispatchOwnership = mock(DispatchOwnership.class);
+        when(dispatchOwnership.getReplicaId()).thenReturn("replica-b");
+
+        writer = new QueueJournalWriter(queueJournal, redisTemplate, queueRedisScripts, jdbcTemplate,
+                transactionTemplate, dispatchOwnership, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "leaseMs", 30_000L);
+        ReflectionTestUtils.setField(writer, "maxBatches", 20);
+
+        // 이전 writer(replica-a)가 읽고 ACK 하지 못한 등록 → 디스패치 두 건
+        when(streamOps.pending(eq(QueueJournal.STREAM_KEY), eq(GROUP), any(Range.class), anyLong()))
+                .thenReturn(new PendingMessages(GROUP, List.of(
+                        new PendingMessage(INSERT_ID, Consumer.from(GROUP, "replica-a"), Duration.ofSeconds(5), 1),
+                        new PendingMessage(DISPATCH_ID, Consumer.from(GROUP, "replica-a"), Duration.ofSeconds(5), 1))));
+        when(streamOps.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(List.of(
+                        record(INSERT_ID, QueueJournal.Entry.insert(100L, 5L, 7L, 900L, TicketType.BASIC)),
+                        record(DISPATCH_ID, QueueJournal.Entry.dispatch(
+                                List.of(100L), QueueStatus.WAITING, QueueStatus.AVAILABLE, 33L))));
+    }
+
+    private static MapRecord<String, Object, Object> record(RecordId id, QueueJournal.Entry entry) {
+        Map<Object, Object> value = new LinkedHashMap<>(entry.toMap());
+        return StreamRecords.newRecord().in(QueueJournal.STREAM_KEY).withId(id).ofMap(value);
+    }
+
+    @Test
+    void pendingEntriesOfPreviousWriterAreClaimedAndReplayedInOrder() {
+        when(queueRedisScripts.renewLease(LEASE_KEY, FENCE, 30_000L)).thenReturn(true);
+
+        writer.drain();
+
+        verify(streamOps).claim(QueueJournal.STREAM_KEY, GROUP, "replica-b", Duration.ZERO, INSERT_ID, DISPATCH_ID);
+        InOrder order = inOrder(jdbcTemplate, queueRedisScripts, streamOps);
+        order.verify(jdbcTemplate).update(startsWith("INSERT IGNORE INTO attraction_queue"), any(Object[].class));
+        order.verify(jdbcTemplate).update(startsWith("UPDATE attraction_queue SET status = ?, attraction_cycle_id = ?"),
+                any(Object[].class));
+        order.verify(queueRedisScripts).renewLease(LEASE_KEY, FENCE, 30_000L);
+        order.verify(streamOps).acknowledge(QueueJournal.STREAM_KEY, GROUP, INSERT_ID, DISPATCH_ID);
+        order.verify(streamOps).delete(QueueJournal.STREAM_KEY, INSERT_ID, DISPATCH_ID);
+        verify(queueRedisScripts).releaseLease(LEASE_KEY, FENCE);
+    }
+
+    // 배치를 읽을 때는 lease 가 있었지만 커밋 직전에 다른 writer 가 잡았으면 롤백하고 ACK 하지 않는다.
+    @Test
+    void batchIsNotAcknowledgedWhenLeaseIsLostBeforeCommit() {
+        when(queueRedisScripts.renewLease(LEASE_KEY, FENCE, 30_000L)).thenReturn(true, false);
+
+        writer.drain();
+
+        verify(jdbcTemplate).update(startsWith("INSERT IGNORE INTO attraction_queue"), any(Object[].class));
+        verify(streamOps, never()).acknowledge(anyString(), anyString(), any(RecordId[].class));
+        verify(streamOps, never()).delete(anyString(), any(RecordId[].class));
+        verify(queueRedisScripts).releaseLease(LEASE_KEY, FENCE);
+    }
+}
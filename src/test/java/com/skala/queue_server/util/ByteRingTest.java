@@ -0,0 +1,112 @@
+package com.skala.queue_server.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ByteRingTest {
+
+    private static byte[] record(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> strings(List<byte[]> records) {
+        return records.stream().map(r -> new String(r, StandardCharsets.UTF_8)).toList();
+    }
+
+    // 8바이트 레코드 = 헤더 포함 12바이트, 용량 32 → 두 개 쓰고 하나 꺼낸 뒤 세 번째는 끝(8바이트)을 넘겨 처음으로 감긴다.
+    @Test
+    void recordThatDoesNotFitAtTheEndWrapsToTheStart() {
+        ByteRing ring = ByteRing.inMemory(32);
+        assertThat(ring.offer(record("aaaaaaaa"))).isTrue();
+        assertThat(ring.offer(record("bbbbbbbb"))).isTrue();
+        ring.pop();
+
+        assertThat(ring.offer(record("cccccccc"))).isTrue();
+        // 감긴 끝부분(8바이트)까지 used 에 포함되므로 링은 가득 찬 상태
+        assertThat(ring.usedBytes()).isEqualTo(32);
+        assertThat(ring.offer(record("dddddddd"))).isFalse();
+
+        assertThat(strings(ring.peek(10))).containsExactly("bbbbbbbb", "cccccccc");
+        assertThat(new String(ring.peek(), StandardCharsets.UTF_8)).isEqualTo("bbbbbbbb");
+
+        ring.pop();
+        assertThat(new String(ring.peek(), StandardCharsets.UTF_8)).isEqualTo("cccccccc");
+        ring.pop();
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.usedBytes()).isZero();
+
+        // 비면 처음부터 다시 쓴다.
+        assertThat(ring.offer(record("eeeeeeee"))).isTrue();
+        assertThat(ring.offer(record("ffffffff"))).isTrue();
+        assertThat(strings(ring.peek(10))).containsExactly("eeeeeeee", "ffffffff");
+    }
+
+    @Test
+    void peekWithLimitDoesNotConsume() {
+        ByteRing ring = ByteRing.inMemory(128);
+        for (String value : List.of("one", "two", "three")) {
+            ring.offer(record(value));
+        }
+
+        assertThat(strings(ring.peek(2))).containsExactly("one", "two");
+        assertThat(strings(ring.peek(2))).containsExactly("one", "two");
+
+        ring.pop();
+        assertThat(strings(ring.peek(5))).containsExactly("two", "three");
+    }
+
+    @Test
+    void recordLargerThanCapacityIsRejected() {
+        ByteRing ring = ByteRing.inMemory(16);
+
+        assertThat(ring.offer(new byte[13])).isFalse();
+        assertThat(ring.offer(new byte[12])).isTrue();
+    }
+
+    @Test
+    void clearDropsEverything() {
+        ByteRing ring = ByteRing.inMemory(64);
+        ring.offer(record("one"));
+        ring.offer(record("two"));
+
+        ring.clear();
+
+        assertThat(ring.isEmpty()).isTrue();
+        assertThat(ring.peek()).isNull();
+        assertThat(ring.peek(10)).isEmpty();
+    }
+
+    @Test
+    void mappedRingResumesRemainingRecordsAfterReopen(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("spill.dat");
+        try (ByteRing ring = ByteRing.mapped(file, 32)) {
+            ring.offer(record("aaaaaaaa"));
+            ring.offer(record("bbbbbbbb"));
+            ring.pop();
+            ring.offer(record("cccccccc"));   // wrap 된 상태로 닫는다
+        }
+
+        try (ByteRing reopened = ByteRing.mapped(file, 32)) {
+            assertThat(reopened.usedBytes()).isEqualTo(32);
+            assertThat(strings(reopened.peek(10))).containsExactly("bbbbbbbb", "cccccccc");
+        }
+    }
+
+    @Test
+    void mappedFileCannotBeOpenedTwice(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("spill.dat");
+        try (ByteRing ignored = ByteRing.mapped(file, 64)) {
+            assertThatThrownBy(() -> ByteRing.mapped(file, 64))
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("already in use");
+        }
+    }
+}
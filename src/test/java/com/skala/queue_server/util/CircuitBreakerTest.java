@@ -0,0 +1,51 @@
+package com.skala.queue_server.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    // 실패 1번이면 OPEN, openMs=0 이라 다음 tryAcquire 에서 바로 HALF_OPEN (시험 허가 1개)
+    private CircuitBreaker halfOpenReady() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 0.5, 1, 0L, 1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        return breaker;
+    }
+
+    @Test
+    void halfOpenPermitIsExhaustedWhileTrialIsInFlight() {
+        CircuitBreaker breaker = halfOpenReady();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void cancelledTrialReturnsHalfOpenPermit() {
+        CircuitBreaker breaker = halfOpenReady();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onCancel();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void cancelOutsideHalfOpenIsNotRecorded() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 0.5, 2, 10_000L, 1);
+        breaker.tryAcquire();
+        breaker.onFailure();
+        breaker.tryAcquire();
+        breaker.onCancel();
+
+        // 취소는 윈도우에 들어가지 않으므로 아직 minimumCalls(2) 에 못 미쳐 CLOSED
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+}